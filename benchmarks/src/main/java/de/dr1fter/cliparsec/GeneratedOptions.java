@@ -0,0 +1,121 @@
+package de.dr1fter.cliparsec;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.google.common.base.Function;
+
+/**
+ * compiles options types whose shape is determined by the benchmark parameters (e.g. the amount of options) at
+ * benchmark setup time, so that arbitrarily large command line interfaces need not be declared by hand.
+ *
+ * @author dr1fter
+ */
+final class GeneratedOptions
+{
+	static final String	PACKAGE	= "generated";
+
+	private GeneratedOptions()
+	{
+	}
+
+	/**
+	 * @return an options type declaring the given amount of string options named <code>o0, o1, ...</code> (plus a
+	 *         help option)
+	 */
+	static Class<?> flat(int optionCount) throws Exception
+	{
+		String name = "Flat" + optionCount;
+		StringBuilder s = new StringBuilder("public class ").append(name).append(" {\n");
+		s.append("  @HelpOption public Object help;\n");
+		for (int i = 0; i < optionCount; i++)
+			s.append("  @Option(description = \"the option #").append(i).append("\") public String o").append(i)
+					.append(";\n");
+		return compile(name, s.append("}\n").toString());
+	}
+
+	/**
+	 * @return the outermost of the given amount of nested command types. Type <code>n</code> declares the options
+	 *         <code>--name</code> and <code>-v</code> and the sub-command <code>c&lt;n+1&gt;</code>.
+	 */
+	static Class<?> nested(int depth) throws Exception
+	{
+		String name = "Nested" + depth;
+		StringBuilder s = new StringBuilder("public class ").append(name).append(" {\n");
+		for (int level = 0; level < depth; level++)
+		{
+			s.append(level == 0 ? "" : "public static class L" + level + " {\n");
+			s.append("  @Option public String name;\n");
+			s.append("  @Option(shortOption = 'v') public boolean verbose;\n");
+			if (level + 1 < depth)
+				s.append("  @Command(name = \"c").append(level + 1).append("\") public L").append(level + 1)
+						.append(" sub;\n");
+			s.append(level == 0 ? "" : "}\n");
+		}
+		return compile(name, s.append("}\n").toString());
+	}
+
+	private static Class<?> compile(String name, String body) throws Exception
+	{
+		File dir = Files.createTempDirectory("cli-parsec-benchmarks").toFile();
+		File source = new File(new File(dir, PACKAGE), name + ".java");
+		source.getParentFile().mkdirs();
+		Writer w = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+		try
+		{
+			w.write("package " + PACKAGE + ";\n");
+			w.write("import de.dr1fter.cliparsec.annotations.*;\n");
+			w.write(body);
+		}
+		finally
+		{
+			w.close();
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null)
+			throw new IllegalStateException("benchmarks must be run on a JDK (javac is required)");
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try
+		{
+			String classpath = locationOf(CliParser.class) + File.pathSeparator + locationOf(Function.class);
+			boolean compiled = compiler.getTask(null, fileManager, null,
+					asList("-classpath", classpath, "-d", dir.getPath(), "-proc:none"), null,
+					fileManager.getJavaFileObjects(source)).call();
+			if (!compiled)
+				throw new IllegalStateException("failed to compile " + source);
+		}
+		finally
+		{
+			fileManager.close();
+		}
+
+		ClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() },
+				GeneratedOptions.class.getClassLoader());
+		return loader.loadClass(PACKAGE + "." + name);
+	}
+
+	private static String locationOf(Class<?> type) throws IOException
+	{
+		try
+		{
+			return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+		}
+		catch (Exception e)
+		{
+			throw new IOException("failed to locate " + type, e);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package de.dr1fter.cliparsec;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+
+import de.dr1fter.cliparsec.CliParserImpl.HelpFormatter;
+
+/**
+ * benchmarks rendering the help text on its own (i.e. without parsing) and requesting help via the parser (which
+ * writes the cached help text).
+ *
+ * @author dr1fter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HelpFormatterBenchmark
+{
+	@Param({ "10", "1000" })
+	int					optionCount;
+
+	private CliModel		model;
+	private Constructor<?>	optionsConstructor;
+	private CliParser		parser;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		Class<?> type = GeneratedOptions.flat(optionCount);
+		model = CliModel.of(type);
+		optionsConstructor = type.getDeclaredConstructor();
+		optionsConstructor.setAccessible(true);
+		parser = CliParser.createCliParser(ByteStreams.nullOutputStream());
+	}
+
+	@Benchmark
+	public String formatHelp()
+	{
+		return HelpFormatter.formatHelp(model);
+	}
+
+	@Benchmark
+	public ParsingResult<Object> helpOption() throws Exception
+	{
+		Object options = optionsConstructor.newInstance();
+		return parser.parse(options, "--o0", "x", "--help");
+	}
+}
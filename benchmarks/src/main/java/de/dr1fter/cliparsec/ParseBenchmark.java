@@ -0,0 +1,196 @@
+package de.dr1fter.cliparsec;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+
+import de.dr1fter.cliparsec.annotations.Option;
+
+/**
+ * benchmarks {@link CliParser#parse(Object, String...)} (i.e. the whole parse pipeline, including the creation of the
+ * options objects) for representative shapes of command line interfaces. Each invocation parses into a new options
+ * object.
+ *
+ * @author dr1fter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark
+{
+	/** the amount of options of the large command line interface */
+	@Param("1000")
+	int					optionCount;
+
+	/** the amount of nested command levels */
+	@Param("8")
+	int					commandDepth;
+
+	/** the amount of values passed to a list option */
+	@Param("10000")
+	int					listLength;
+
+	private CliParser		parser;
+
+	private String[]		flagArgs;
+	private Constructor<?>	largeOptions;
+	private String[]		largeArgs;
+	private String[]		keyValueArgs;
+	private Constructor<?>	nestedOptions;
+	private String[]		nestedArgs;
+	private String[]		listArgs;
+	private String[]		requiredArgs;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		parser = CliParser.createCliParser(ByteStreams.nullOutputStream());
+
+		flagArgs = new String[] { "-abc", "--verbose", "--force", "-q" };
+
+		largeOptions = constructorOf(GeneratedOptions.flat(optionCount));
+		List<String> args = new ArrayList<String>();
+		for (int i = 0; i < optionCount; i += Math.max(1, optionCount / 20)) // 20 options spread over the model
+		{
+			args.add("--o" + i);
+			args.add("value" + i);
+		}
+		largeArgs = args.toArray(new String[args.size()]);
+
+		args.clear();
+		for (int i = 0; i < Math.min(optionCount, 100); i++)
+			args.add("--o" + i + "=value" + i);
+		keyValueArgs = args.toArray(new String[args.size()]);
+
+		nestedOptions = constructorOf(GeneratedOptions.nested(commandDepth));
+		args.clear();
+		for (int level = 0; level < commandDepth; level++)
+		{
+			if (level > 0)
+				args.add("c" + level);
+			args.add("--name");
+			args.add("level" + level);
+			args.add("-v");
+		}
+		nestedArgs = args.toArray(new String[args.size()]);
+
+		args.clear();
+		args.add("--files");
+		for (int i = 0; i < listLength; i++)
+			args.add("file" + i);
+		args.add("--verbose");
+		listArgs = args.toArray(new String[args.size()]);
+
+		requiredArgs = new String[] { "--input", "in", "--output", "out", "--format", "json", "--mode", "fast",
+				"--user", "me" };
+
+		// make sure all shapes are benchmarked for successful parsing runs
+		for (ParsingResult<?> result : new ParsingResult<?>[] { smallFlagOnly(), largeCli(), keyValueHeavy(),
+				deepCommandNesting(), longListArgument(), requiredExpressions() })
+			if (result.status() != ParsingResult.Status.SUCCESS)
+				throw new IllegalStateException("unexpected parsing status: " + result.status());
+	}
+
+	private static Constructor<?> constructorOf(Class<?> type) throws NoSuchMethodException
+	{
+		Constructor<?> ctor = type.getDeclaredConstructor();
+		ctor.setAccessible(true);
+		return ctor;
+	}
+
+	@Benchmark
+	public ParsingResult<?> smallFlagOnly() throws Exception
+	{
+		return parser.parse(new FlagOptions(), flagArgs);
+	}
+
+	@Benchmark
+	public ParsingResult<?> largeCli() throws Exception
+	{
+		return parser.parse(largeOptions.newInstance(), largeArgs);
+	}
+
+	@Benchmark
+	public ParsingResult<?> keyValueHeavy() throws Exception
+	{
+		return parser.parse(largeOptions.newInstance(), keyValueArgs);
+	}
+
+	@Benchmark
+	public ParsingResult<?> deepCommandNesting() throws Exception
+	{
+		return parser.parse(nestedOptions.newInstance(), nestedArgs);
+	}
+
+	@Benchmark
+	public ParsingResult<?> longListArgument() throws Exception
+	{
+		return parser.parse(new ListOptions(), listArgs);
+	}
+
+	@Benchmark
+	public ParsingResult<?> requiredExpressions() throws Exception
+	{
+		return parser.parse(new RequiredOptions(), requiredArgs);
+	}
+
+	public static class FlagOptions
+	{
+		@Option
+		boolean	a;
+		@Option
+		boolean	b;
+		@Option
+		boolean	c;
+		@Option(shortOption = 'q')
+		boolean	quiet;
+		@Option
+		boolean	verbose;
+		@Option
+		boolean	force;
+	}
+
+	public static class ListOptions
+	{
+		@Option
+		String[]	files;
+		@Option
+		boolean		verbose;
+	}
+
+	public static class RequiredOptions
+	{
+		@Option
+		String	input;
+		@Option
+		String	output;
+		@Option
+		boolean	stdout;
+		@Option
+		boolean	dryRun;
+		@Option(required = "present(input) & !present(stdout)")
+		String	format;
+		@Option(required = "(present(input) | present(output)) & !present(dryRun)")
+		String	mode;
+		@Option(required = "true")
+		String	user;
+	}
+}
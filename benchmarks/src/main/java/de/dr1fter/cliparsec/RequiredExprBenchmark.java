@@ -0,0 +1,66 @@
+package de.dr1fter.cliparsec;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.dr1fter.cliparsec.CliModel.OptionDescriptor;
+import de.dr1fter.cliparsec.RequiredExprParser.Expr;
+
+/**
+ * benchmarks compiling and evaluating required expressions (see {@link RequiredExprParser}) on their own.
+ *
+ * @author dr1fter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RequiredExprBenchmark
+{
+	@Param({ "true", "present(input) & !present(stdout)",
+			"(present(input) | present(output)) & !(present(dryRun) | !present(user))" })
+	String									expression;
+
+	private Map<String, OptionDescriptor>	optionsByFieldName;
+	private Expr							compiled;
+	private BitSet							present;
+
+	@Setup
+	public void setup()
+	{
+		CliModel model = CliModel.of(ParseBenchmark.RequiredOptions.class);
+		optionsByFieldName = model.optionsByFieldName;
+		compiled = RequiredExprParser.compile(expression, optionsByFieldName);
+
+		present = new BitSet();
+		present.set(optionsByFieldName.get("input").ordinal);
+		present.set(optionsByFieldName.get("user").ordinal);
+	}
+
+	@Benchmark
+	public Expr compile()
+	{
+		return RequiredExprParser.compile(expression, optionsByFieldName);
+	}
+
+	@Benchmark
+	public boolean evaluate()
+	{
+		return compiled.evaluate(present);
+	}
+}
@@ -0,0 +1,136 @@
+package de.dr1fter.cliparsec.coldstart;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+
+import de.dr1fter.cliparsec.CliParser;
+import de.dr1fter.cliparsec.Converters;
+import de.dr1fter.cliparsec.ParsingResult;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+
+/**
+ * the sample application started by the {@link ColdStartHarness}: parses the args of the given scenario once and
+ * reports the end of the first parsing run (see {@link #FIRST_RESULT}) and its peak resident set size to stdout.
+ * <p>
+ * Nothing but the parsing run is done before the first result is reported, so that the measured time covers JVM
+ * startup, class loading and the first parse only.
+ *
+ * @author dr1fter
+ */
+public final class ColdStartApp
+{
+	/** the prefix of the line reporting the first parsing result */
+	static final String	FIRST_RESULT	= "@@first-result ";
+	/** the prefix of the line reporting the peak resident set size (in KiB, -1 if unknown) */
+	static final String	PEAK_RSS		= "@@peak-rss-kib ";
+
+	private ColdStartApp()
+	{
+	}
+
+	/**
+	 * @param args
+	 *            the scenario (see {@link ColdStartHarness.Scenario})
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		ParsingResult<?> result;
+		switch (args[0])
+		{
+		case "flags":
+			result = CliParser.createCliParser().parse(new FlagOptions(), "-abc", "--verbose", "--force");
+			break;
+		case "sub-commands":
+			result = CliParser.createCliParser().parse(new Level0(), "--name", "l0", "c1", "--name", "l1", "-v",
+					"c2", "--name", "l2", "c3", "--count", "3", "operand");
+			break;
+		case "help":
+			result = CliParser.createCliParser().parse(new Level0(), "--help");
+			break;
+		default:
+			throw new IllegalArgumentException("unknown scenario: " + args[0]);
+		}
+		System.out.println(FIRST_RESULT + result.status());
+		System.out.println(PEAK_RSS + peakRssKib());
+	}
+
+	/**
+	 * @return the process's peak resident set size in KiB (as reported by Linux' procfs) or -1 if it is not available
+	 */
+	private static long peakRssKib()
+	{
+		try
+		{
+			BufferedReader status = new BufferedReader(new InputStreamReader(new FileInputStream("/proc/self/status"),
+					"US-ASCII"));
+			try
+			{
+				for (String line; (line = status.readLine()) != null;)
+					if (line.startsWith("VmHWM:"))
+						return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+			}
+			finally
+			{
+				status.close();
+			}
+		}
+		catch (Exception e)
+		{
+			// not Linux
+		}
+		return -1;
+	}
+
+	public static class FlagOptions
+	{
+		@Option
+		boolean	a;
+		@Option
+		boolean	b;
+		@Option
+		boolean	c;
+		@Option
+		boolean	verbose;
+		@Option
+		boolean	force;
+		@HelpOption
+		Object	help;
+	}
+
+	public static class Level0
+	{
+		@Option
+		String	name;
+		@HelpOption
+		Object	help;
+		@Command(name = "c1")
+		Level1	c1;
+	}
+
+	public static class Level1
+	{
+		@Option
+		String	name;
+		@Option(shortOption = 'v')
+		boolean	verbose;
+		@Command(name = "c2")
+		Level2	c2;
+	}
+
+	public static class Level2
+	{
+		@Option
+		String	name;
+		@Command(name = "c3")
+		Level3	c3;
+	}
+
+	public static class Level3
+	{
+		@Option(converter = Converters.IntegerValue.class)
+		int	count;
+	}
+}
@@ -0,0 +1,259 @@
+package de.dr1fter.cliparsec.coldstart;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * measures the cold start of a command line interface: the {@link ColdStartApp} is run in fresh JVM processes (one
+ * per run) for each scenario. Reported are the wall-clock time from starting the process to the first parsing result,
+ * the amount of loaded classes and the peak resident set size. Usage:
+ *
+ * <pre>
+ * java -cp benchmarks.jar de.dr1fter.cliparsec.coldstart.ColdStartHarness [--runs n] [--report file] [jvm args...]
+ * </pre>
+ *
+ * The given JVM args (e.g. <code>-Xshare:off</code> or <code>-XX:TieredStopAtLevel=1</code>) are passed to the
+ * started processes. The report is written in JSON format (default: <code>cold-start-report.json</code>); a summary is
+ * printed to stdout.
+ *
+ * @author dr1fter
+ */
+public final class ColdStartHarness
+{
+	/**
+	 * the measured scenarios (see {@link ColdStartApp}).
+	 */
+	enum Scenario
+	{
+		/** a flags-only command line interface */
+		FLAGS("flags"),
+		/** three levels of sub-commands */
+		SUB_COMMANDS("sub-commands"),
+		/** printing the help text */
+		HELP("help");
+
+		final String	id;
+
+		private Scenario(String id)
+		{
+			this.id = id;
+		}
+	}
+
+	/** the runs of a scenario preceding the measured ones (to warm up the file system caches) */
+	private static final int	DISCARDED_RUNS	= 2;
+
+	private final String		java;
+	private final String		classPath;
+	private final List<String>	jvmArgs;
+
+	ColdStartHarness(String java, String classPath, List<String> jvmArgs)
+	{
+		this.java = java;
+		this.classPath = classPath;
+		this.jvmArgs = jvmArgs;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int runs = 20;
+		File report = new File("cold-start-report.json");
+		List<String> jvmArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("--runs"))
+				runs = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--report"))
+				report = new File(args[++i]);
+			else
+				jvmArgs.add(args[i]);
+		}
+
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		ColdStartHarness harness = new ColdStartHarness(java, System.getProperty("java.class.path"), jvmArgs);
+
+		List<Result> results = new ArrayList<Result>();
+		for (Scenario scenario : Scenario.values())
+		{
+			Result result = harness.measure(scenario, runs);
+			System.out.println(result.summary());
+			results.add(result);
+		}
+
+		Writer w = new OutputStreamWriter(new FileOutputStream(report), "UTF-8");
+		try
+		{
+			w.write(toJson(java, jvmArgs, runs, results));
+		}
+		finally
+		{
+			w.close();
+		}
+		System.out.println("report written to " + report.getAbsolutePath());
+	}
+
+	Result measure(Scenario scenario, int runs) throws IOException, InterruptedException
+	{
+		Result result = new Result(scenario);
+		for (int run = 0; run < DISCARDED_RUNS + runs; run++)
+		{
+			Run r = start(scenario, false);
+			if (run >= DISCARDED_RUNS)
+			{
+				result.timesMillis.add(r.timeToFirstResultMillis);
+				result.peakRssKib.add(r.peakRssKib);
+			}
+		}
+		// class loading is logged in a separate run, since logging affects the timing
+		result.classesLoaded = start(scenario, true).classesLoaded;
+		return result;
+	}
+
+	/**
+	 * runs the app once.
+	 *
+	 * @param logClassLoading
+	 *            whether or not to count the loaded classes (using <code>-verbose:class</code>)
+	 */
+	private Run start(Scenario scenario, boolean logClassLoading) throws IOException, InterruptedException
+	{
+		List<String> command = new ArrayList<String>();
+		command.add(java);
+		command.addAll(jvmArgs);
+		if (logClassLoading)
+			command.add("-verbose:class");
+		command.addAll(Arrays.asList("-cp", classPath, ColdStartApp.class.getName(), scenario.id));
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		Run run = new Run();
+		BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+		StringBuilder output = new StringBuilder();
+		int loggedClasses = 0;
+		for (String line; (line = out.readLine()) != null;)
+		{
+			if (line.startsWith(ColdStartApp.FIRST_RESULT))
+			{
+				run.timeToFirstResultMillis = NANOSECONDS.toMicros(System.nanoTime() - start) / 1000d;
+				run.classesLoaded = loggedClasses;
+			}
+			else if (line.startsWith(ColdStartApp.PEAK_RSS))
+				run.peakRssKib = Long.parseLong(line.substring(ColdStartApp.PEAK_RSS.length()));
+			else if (isClassLoadingLog(line))
+			{
+				if (run.timeToFirstResultMillis < 0)
+					loggedClasses++;
+			}
+			else
+				output.append(line).append('\n');
+		}
+		int exitCode = process.waitFor();
+		if (exitCode != 0 || run.timeToFirstResultMillis < 0)
+			throw new IllegalStateException("scenario " + scenario.id + " failed (exit code " + exitCode + "):\n"
+					+ output);
+		return run;
+	}
+
+	/**
+	 * @return <code>true</code> iff the given line is logged by <code>-verbose:class</code> for a loaded class (JDK 8
+	 *         and JDK 9+ format)
+	 */
+	private static boolean isClassLoadingLog(String line)
+	{
+		return line.startsWith("[Loaded ") || line.contains("[class,load]");
+	}
+
+	/**
+	 * a single run of a scenario.
+	 */
+	private static final class Run
+	{
+		double	timeToFirstResultMillis	= -1;
+		long	peakRssKib				= -1;
+		int		classesLoaded			= -1;
+	}
+
+	/**
+	 * the measurements of a scenario.
+	 */
+	static final class Result
+	{
+		final Scenario		scenario;
+		final List<Double>	timesMillis	= new ArrayList<Double>();
+		final List<Long>	peakRssKib	= new ArrayList<Long>();
+		int					classesLoaded;
+
+		Result(Scenario scenario)
+		{
+			this.scenario = scenario;
+		}
+
+		String summary()
+		{
+			return String.format(Locale.ROOT,
+					"%-13s time to first result: median %7.1f ms (min %7.1f, p90 %7.1f)"
+							+ " | classes loaded: %5d | peak RSS: median %7d KiB",
+					scenario.id, percentile(timesMillis, 50), percentile(timesMillis, 0), percentile(timesMillis, 90),
+					classesLoaded, percentile(peakRssKib, 50));
+		}
+	}
+
+	/**
+	 * @return the given percentile (nearest rank) of the given samples
+	 */
+	static <T extends Comparable<T>> T percentile(List<T> samples, int percentile)
+	{
+		List<T> sorted = new ArrayList<T>(samples);
+		Collections.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100d * sorted.size());
+		return sorted.get(Math.max(0, rank - 1));
+	}
+
+	static String toJson(String java, List<String> jvmArgs, int runs, List<Result> results)
+	{
+		StringBuilder s = new StringBuilder("{\n");
+		s.append("  \"java\": ").append(quote(java)).append(",\n");
+		s.append("  \"javaVersion\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+		s.append("  \"jvmArgs\": [");
+		for (int i = 0; i < jvmArgs.size(); i++)
+			s.append(i == 0 ? "" : ", ").append(quote(jvmArgs.get(i)));
+		s.append("],\n");
+		s.append("  \"runs\": ").append(runs).append(",\n");
+		s.append("  \"scenarios\": [");
+		for (int i = 0; i < results.size(); i++)
+		{
+			Result r = results.get(i);
+			s.append(i == 0 ? "\n" : ",\n").append("    {\n");
+			s.append("      \"name\": ").append(quote(r.scenario.id)).append(",\n");
+			s.append("      \"classesLoaded\": ").append(r.classesLoaded).append(",\n");
+			s.append("      \"timeToFirstResultMillis\": ").append(statistics(r.timesMillis)).append(",\n");
+			s.append("      \"peakRssKib\": ").append(statistics(r.peakRssKib)).append("\n");
+			s.append("    }");
+		}
+		return s.append("\n  ]\n}\n").toString();
+	}
+
+	private static <T extends Comparable<T>> String statistics(List<T> samples)
+	{
+		return String.format(Locale.ROOT, "{ \"min\": %s, \"median\": %s, \"p90\": %s, \"max\": %s, \"samples\": %s }",
+				percentile(samples, 0), percentile(samples, 50), percentile(samples, 90), percentile(samples, 100),
+				samples);
+	}
+
+	private static String quote(String s)
+	{
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,225 @@
+package de.dr1fter.cliparsec.processor;
+
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * generates a reflection-free accessor (see <code>de.dr1fter.cliparsec.GeneratedAccessor</code>) for each type
+ * declaring fields that are annotated with CLI-Parsec annotations. The parser picks up generated accessors
+ * automatically and falls back to reflection for types without one.
+ * <p>
+ * Accessors read and write fields directly, so they can only be generated if all annotated fields (including
+ * inherited ones) are non-final and accessible from within the options type's package. For any other type, a warning
+ * is issued and no accessor is generated.
+ *
+ * @author dr1fter
+ */
+@SupportedAnnotationTypes({ AccessorProcessor.OPTION, AccessorProcessor.HELP_OPTION, AccessorProcessor.COMMAND,
+		AccessorProcessor.SUB_COMMANDS })
+public class AccessorProcessor extends AbstractProcessor
+{
+	static final String			OPTION			= "de.dr1fter.cliparsec.annotations.Option";
+	static final String			HELP_OPTION		= "de.dr1fter.cliparsec.annotations.HelpOption";
+	static final String			COMMAND			= "de.dr1fter.cliparsec.annotations.Command";
+	static final String			SUB_COMMANDS	= "de.dr1fter.cliparsec.annotations.SubCommands";
+
+	static final String			ACCESSOR_TYPE	= "de.dr1fter.cliparsec.GeneratedAccessor";
+	/** must match <code>GeneratedAccessor.SUFFIX</code> */
+	static final String			SUFFIX			= "$$CliParsecAccessor";
+
+	private static final Set<String>	annotationNames	= new HashSet<String>(Arrays.asList(OPTION, HELP_OPTION,
+																	COMMAND, SUB_COMMANDS));
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		Set<TypeElement> optionTypes = new LinkedHashSet<TypeElement>();
+		for (TypeElement annotation : annotations)
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+				if (element.getKind() == ElementKind.FIELD)
+					optionTypes.add((TypeElement) element.getEnclosingElement());
+
+		for (TypeElement optionType : optionTypes)
+			generateAccessor(optionType);
+
+		return false; // other processors may be interested in our annotations as well
+	}
+
+	private void generateAccessor(TypeElement type)
+	{
+		String reason = inaccessibilityReason(type);
+		Map<String, VariableElement> fields = new LinkedHashMap<String, VariableElement>();
+		if (reason == null)
+			reason = collectAnnotatedFields(type, fields);
+		if (reason != null)
+		{
+			processingEnv.getMessager().printMessage(WARNING,
+					"no CLI-Parsec accessor generated (falling back to reflection): " + reason, type);
+			return;
+		}
+
+		String packageName = packageOf(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String accessorName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+				+ SUFFIX;
+		String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+		StringBuilder s = new StringBuilder();
+		if (!packageName.isEmpty())
+			s.append("package ").append(packageName).append(";\n\n");
+		s.append("/**\n * generated by ").append(getClass().getName()).append(" - do not edit.\n */\n");
+		s.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+		s.append("public final class ").append(accessorName).append(" implements ").append(ACCESSOR_TYPE)
+				.append("\n{\n");
+
+		s.append("\tpublic void set(Object options, String field, Object value)\n\t{\n");
+		s.append("\t\t").append(typeName).append(" o = (").append(typeName).append(") options;\n");
+		s.append("\t\tswitch (field)\n\t\t{\n");
+		for (Map.Entry<String, VariableElement> field : fields.entrySet())
+			s.append("\t\tcase \"").append(field.getKey()).append("\":\n")
+					.append("\t\t\to.").append(field.getKey()).append(" = (")
+					.append(castType(field.getValue().asType())).append(") value;\n")
+					.append("\t\t\treturn;\n");
+		s.append("\t\tdefault:\n\t\t\tthrow new IllegalArgumentException(\"no such field: \" + field);\n");
+		s.append("\t\t}\n\t}\n\n");
+
+		s.append("\tpublic Object get(Object options, String field)\n\t{\n");
+		s.append("\t\t").append(typeName).append(" o = (").append(typeName).append(") options;\n");
+		s.append("\t\tswitch (field)\n\t\t{\n");
+		for (String field : fields.keySet())
+			s.append("\t\tcase \"").append(field).append("\":\n")
+					.append("\t\t\treturn o.").append(field).append(";\n");
+		s.append("\t\tdefault:\n\t\t\tthrow new IllegalArgumentException(\"no such field: \" + field);\n");
+		s.append("\t\t}\n\t}\n}\n");
+
+		try
+		{
+			String qualifiedName = packageName.isEmpty() ? accessorName : packageName + "." + accessorName;
+			Writer w = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter();
+			try
+			{
+				w.write(s.toString());
+			}
+			finally
+			{
+				w.close();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("failed to write accessor for " + type, e);
+		}
+	}
+
+	/**
+	 * @return a description why the given type cannot be accessed from generated code or <code>null</code> if it can
+	 */
+	private String inaccessibilityReason(TypeElement type)
+	{
+		for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement())
+		{
+			if (!(e instanceof TypeElement))
+				return type + " is a local type";
+			NestingKind nesting = ((TypeElement) e).getNestingKind();
+			if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS)
+				return type + " is a local or anonymous type";
+			if (e.getModifiers().contains(PRIVATE))
+				return e + " is private";
+		}
+		return null;
+	}
+
+	/**
+	 * collects the annotated fields of the given type and all of its supertypes into the given map.
+	 *
+	 * @return a description why a field cannot be accessed from generated code or <code>null</code> if all can
+	 */
+	private String collectAnnotatedFields(TypeElement type, Map<String, VariableElement> fields)
+	{
+		PackageElement pkg = packageOf(type);
+		for (TypeElement t = type; t != null; t = superclassOf(t))
+			for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements()))
+			{
+				if (!isAnnotated(field))
+					continue;
+
+				String name = field.getSimpleName().toString();
+				if (field.getModifiers().contains(PRIVATE))
+					return "field " + t + "." + name + " is private";
+				if (field.getModifiers().contains(FINAL))
+					return "field " + t + "." + name + " is final";
+				if (!field.getModifiers().contains(PUBLIC) && !packageOf(t).equals(pkg))
+					return "field " + t + "." + name + " is not visible from package " + pkg;
+				if (fields.put(name, field) != null)
+					return "field " + t + "." + name + " is hidden by a field of the same name";
+			}
+		return null;
+	}
+
+	private boolean isAnnotated(VariableElement field)
+	{
+		List<? extends AnnotationMirror> mirrors = field.getAnnotationMirrors();
+		for (AnnotationMirror mirror : mirrors)
+		{
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			if (annotationNames.contains(annotationType.getQualifiedName().toString()))
+				return true;
+		}
+		return false;
+	}
+
+	private String castType(TypeMirror type)
+	{
+		if (type.getKind().isPrimitive())
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	private TypeElement superclassOf(TypeElement type)
+	{
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED)
+			return null;
+		return (TypeElement) ((DeclaredType) superclass).asElement();
+	}
+
+	private PackageElement packageOf(Element element)
+	{
+		return processingEnv.getElementUtils().getPackageOf(element);
+	}
+}
@@ -0,0 +1,156 @@
+package de.dr1fter.cliparsec.processor;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Function;
+
+import de.dr1fter.cliparsec.CliParser;
+import de.dr1fter.cliparsec.GeneratedAccessor;
+
+public class AccessorProcessorTest
+{
+	@Rule
+	public TemporaryFolder						tmpDir		= new TemporaryFolder();
+
+	private File								srcDir;
+	private File								outDir;
+	private DiagnosticCollector<JavaFileObject>	diagnostics	= new DiagnosticCollector<JavaFileObject>();
+	private ClassLoader							loader;
+
+	@Before
+	public void setup() throws Exception
+	{
+		srcDir = tmpDir.newFolder("src");
+		outDir = tmpDir.newFolder("classes");
+
+		writeSource("SampleOptions",
+				"package sample;",
+				"import de.dr1fter.cliparsec.Converters;",
+				"import de.dr1fter.cliparsec.annotations.*;",
+				"public class SampleOptions {",
+				"  @Option(shortOption = 'v') public boolean verbose;",
+				"  @Option String name;",
+				"  @Option(converter = Converters.IntegerValue.class) int count;",
+				"  @Option java.util.List<String> files = new java.util.ArrayList<String>();",
+				"  @HelpOption Object help;",
+				"  @Command(name = \"sub\") Sub sub;",
+				"  public static class Sub { @Option String subOption; }",
+				"}");
+		writeSource("PrivateOptions",
+				"package sample;",
+				"import de.dr1fter.cliparsec.annotations.*;",
+				"public class PrivateOptions {",
+				"  @Option private String secret;",
+				"}");
+		compile();
+		loader = new URLClassLoader(new URL[] { outDir.toURI().toURL() }, getClass().getClassLoader());
+	}
+
+	@Test
+	public void accessor_should_be_generated_and_used_by_the_parser() throws Exception
+	{
+		Object options = loader.loadClass("sample.SampleOptions").getDeclaredConstructor().newInstance();
+
+		CliParser.createCliParser().parse(options, "-v", "--name", "n", "--files", "a", "b", "--count", "3",
+				"sub", "--subOption", "s");
+
+		assertThat(valueOf(options, "verbose"), is((Object) true));
+		assertThat(valueOf(options, "name"), is((Object) "n"));
+		assertThat(valueOf(options, "count"), is((Object) 3));
+		assertThat((List<?>) valueOf(options, "files"), contains((Object) "a", "b"));
+		assertThat(valueOf(valueOf(options, "sub"), "subOption"), is((Object) "s"));
+	}
+
+	@Test
+	public void accessor_should_write_fields_directly() throws Exception
+	{
+		Object options = loader.loadClass("sample.SampleOptions").getDeclaredConstructor().newInstance();
+		GeneratedAccessor accessor = (GeneratedAccessor) loader.loadClass(
+				"sample.SampleOptions" + GeneratedAccessor.SUFFIX).getDeclaredConstructor().newInstance();
+
+		accessor.set(options, "count", 42);
+
+		assertThat(accessor.get(options, "count"), is((Object) 42));
+		loader.loadClass("sample.SampleOptions$Sub" + GeneratedAccessor.SUFFIX);
+	}
+
+	@Test
+	public void no_accessor_should_be_generated_for_private_fields() throws Exception
+	{
+		assertThat(new File(outDir, "sample/PrivateOptions" + AccessorProcessor.SUFFIX + ".class").exists(), is(false));
+
+		StringBuilder warnings = new StringBuilder();
+		for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics())
+			warnings.append(d.getMessage(null)).append('\n');
+		assertThat(warnings.toString(), containsString("secret is private"));
+	}
+
+	private void writeSource(String name, String... lines) throws Exception
+	{
+		File dir = new File(srcDir, "sample");
+		dir.mkdirs();
+		Writer w = new OutputStreamWriter(new FileOutputStream(new File(dir, name + ".java")), "UTF-8");
+		try
+		{
+			for (String line : lines)
+				w.write(line + "\n");
+		}
+		finally
+		{
+			w.close();
+		}
+	}
+
+	private void compile() throws Exception
+	{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		String classpath = locationOf(CliParser.class) + File.pathSeparator + locationOf(Function.class);
+
+		Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjects(
+				new File(srcDir, "sample/SampleOptions.java"), new File(srcDir, "sample/PrivateOptions.java"));
+		JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+				asList("-classpath", classpath, "-d", outDir.getPath(), "-s", outDir.getPath()), null, sources);
+		task.setProcessors(asList(new AccessorProcessor()));
+
+		assertThat(diagnostics.getDiagnostics().toString(), task.call(), is(true));
+		fileManager.close();
+	}
+
+	private static Object valueOf(Object o, String fieldName) throws Exception
+	{
+		Field field = o.getClass().getDeclaredField(fieldName);
+		field.setAccessible(true);
+		return field.get(o);
+	}
+
+	private static String locationOf(Class<?> type) throws Exception
+	{
+		return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+	}
+}
@@ -0,0 +1,152 @@
+package de.dr1fter.cliparsec;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.copyOfRange;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * the raw args of a parsing run. Args are either backed by an array (which is never modified) or are read lazily from
+ * an iterator - only as far as they are accessed - into an internal buffer.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class Args
+{
+	private static final int		INITIAL_CAPACITY	= 16;
+
+	private String[]				args;
+	private int						size;
+	/** the source of not yet read args or <code>null</code> if all args are known */
+	private final Iterator<String>	source;
+	/** whether or not args were passed on from the source without being buffered (see {@link #iterator(int)}) */
+	private boolean					streamed;
+
+	/**
+	 * @param args
+	 *            not <code>null</code>
+	 */
+	Args(String[] args)
+	{
+		this.args = args;
+		this.size = args.length;
+		this.source = null;
+	}
+
+	/**
+	 * @param source
+	 *            not <code>null</code>, must not return <code>null</code> elements
+	 */
+	Args(Iterator<String> source)
+	{
+		this.args = new String[INITIAL_CAPACITY];
+		this.size = 0;
+		this.source = source;
+	}
+
+	/**
+	 * @return <code>true</code> iff there is an arg at the given index (reading args from the source up to said index,
+	 *         if required)
+	 */
+	boolean has(int index)
+	{
+		while (index >= size)
+		{
+			if (streamed)
+				throw new IllegalStateException("the remaining args were already consumed by an iterator");
+			if (source == null || !source.hasNext())
+				return false;
+			if (size == args.length)
+				args = copyOf(args, size * 2);
+			args[size++] = source.next();
+		}
+		return true;
+	}
+
+	/**
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             if there is no arg at the given index
+	 */
+	String get(int index)
+	{
+		if (!has(index))
+			throw new ArrayIndexOutOfBoundsException(index);
+		return args[index];
+	}
+
+	/**
+	 * @return <code>true</code> if all args are held in memory (i.e. they are not read lazily from an iterator)
+	 */
+	boolean isMaterialised()
+	{
+		return source == null;
+	}
+
+	boolean isEmpty()
+	{
+		return !has(0);
+	}
+
+	/**
+	 * @return a copy of all args starting at the given index (reading all remaining args from the source), never
+	 *         <code>null</code>
+	 */
+	String[] from(int index)
+	{
+		return copyOfRange(args, index, size());
+	}
+
+	/**
+	 * @return the number of args (reading all remaining args from the source)
+	 */
+	int size()
+	{
+		while (has(size))
+			; // read all
+		return size;
+	}
+
+	/**
+	 * returns an iterator over all args starting at the given index. Args that were not yet read are passed on from the
+	 * source without being buffered, i.e. they cannot be accessed in any other way afterwards (and only one such
+	 * iterator may be used).
+	 *
+	 * @return never <code>null</code>
+	 */
+	Iterator<String> iterator(final int index)
+	{
+		if (streamed)
+			throw new IllegalStateException("the remaining args were already consumed by an iterator");
+
+		return new Iterator<String>()
+		{
+			private int	next	= index;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < size || source != null && source.hasNext();
+			}
+
+			@Override
+			public String next()
+			{
+				if (next < size)
+					return args[next++];
+				if (source == null || !source.hasNext())
+					throw new NoSuchElementException();
+				streamed = true;
+				return source.next();
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
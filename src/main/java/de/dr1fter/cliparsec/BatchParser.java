@@ -0,0 +1,139 @@
+package de.dr1fter.cliparsec;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Supplier;
+
+/**
+ * parses a batch of argument vectors in parallel. The batch is split into contiguous chunks (a few per thread, so that
+ * threads finishing early pick up the remaining work), each of which is parsed by a single task.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class BatchParser<T>
+{
+	private static final int	CHUNKS_PER_THREAD	= 4;
+
+	/** lazily created default pool */
+	private static final class DefaultPool
+	{
+		static final ForkJoinPool	INSTANCE	= new ForkJoinPool();
+	}
+
+	private final CliParser				parser;
+	private final Supplier<T>			optionsFactory;
+	private final String[][]			argVectors;
+	private final ParsingResult<T>[]	results;
+	private final AtomicReference<Throwable>	failure	= new AtomicReference<Throwable>();
+
+	@SuppressWarnings("unchecked")
+	BatchParser(CliParser parser, Supplier<T> optionsFactory, List<String[]> argVectors)
+	{
+		this.parser = parser;
+		this.optionsFactory = optionsFactory;
+		this.argVectors = argVectors.toArray(new String[argVectors.size()][]);
+		this.results = new ParsingResult[this.argVectors.length];
+	}
+
+	/**
+	 * @return the pool used if no executor is specified (sized to the number of available processors)
+	 */
+	static ForkJoinPool defaultExecutor()
+	{
+		return DefaultPool.INSTANCE;
+	}
+
+	/**
+	 * parses all argument vectors using the given executor and waits for all of them to be parsed. Chunks rejected by
+	 * the executor are parsed by the calling thread.
+	 *
+	 * @return the results in input order, never <code>null</code>
+	 */
+	List<ParsingResult<T>> run(Executor executor) throws InterruptedException
+	{
+		int parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism() : Runtime
+				.getRuntime().availableProcessors();
+		int chunks = Math.max(1, Math.min(argVectors.length, parallelism * CHUNKS_PER_THREAD));
+		CountDownLatch done = new CountDownLatch(chunks);
+
+		for (int c = 0; c < chunks; c++)
+		{
+			Runnable chunk = new Chunk(c * argVectors.length / chunks, (c + 1) * argVectors.length / chunks, done);
+			try
+			{
+				executor.execute(chunk);
+			}
+			catch (RejectedExecutionException e)
+			{
+				chunk.run();
+			}
+		}
+		done.await();
+
+		Throwable t = failure.get();
+		if (t instanceof Error)
+			throw (Error) t;
+		if (t != null)
+			throw new RuntimeException(t);
+		return unmodifiableList(asList(results));
+	}
+
+	/**
+	 * parses a single argument vector, turning any exception into a failed result.
+	 */
+	private ParsingResult<T> parse(String[] args)
+	{
+		T options = null;
+		try
+		{
+			options = optionsFactory.get();
+			return parser.parse(options, args);
+		}
+		catch (Exception e)
+		{
+			return ParsingResultImpl.failed(options, e);
+		}
+	}
+
+	private final class Chunk implements Runnable
+	{
+		private final int				from;
+		private final int				to;
+		private final CountDownLatch	done;
+
+		Chunk(int from, int to, CountDownLatch done)
+		{
+			this.from = from;
+			this.to = to;
+			this.done = done;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				for (int i = from; i < to; i++)
+					results[i] = parse(argVectors[i]);
+			}
+			catch (Throwable t)
+			{
+				failure.compareAndSet(null, t);
+			}
+			finally
+			{
+				done.countDown();
+			}
+		}
+	}
+}
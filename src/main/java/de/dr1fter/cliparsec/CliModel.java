@@ -0,0 +1,571 @@
+package de.dr1fter.cliparsec;
+
+import static java.lang.String.format;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.annotations.SubCommands;
+
+/**
+ * the compiled command line interface of a single options type. A model is derived from the annotated fields of the
+ * type (and its supertypes) exactly once and is cached for the lifetime of the type. Models are immutable and may be
+ * shared between any amount of parsing runs.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class CliModel
+{
+	private static final AtomicLong	lookups			= new AtomicLong();
+	private static final AtomicLong	builds			= new AtomicLong();
+	private static final AtomicLong	buildTimeNanos	= new AtomicLong();
+
+	private static final ClassValue<CliModel>	cache	= new ClassValue<CliModel>()
+	{
+		@Override
+		protected CliModel computeValue(Class<?> type)
+		{
+			long start = System.nanoTime();
+			CliModel model = new CliModel(type);
+			buildTimeNanos.addAndGet(System.nanoTime() - start);
+			builds.incrementAndGet();
+			return model;
+		}
+	};
+
+	/**
+	 * returns the model for the given options type. The model is built upon the first request and served from the
+	 * cache afterwards.
+	 *
+	 * @param type
+	 *            not <code>null</code>
+	 * @return never <code>null</code>
+	 */
+	static CliModel of(Class<?> type)
+	{
+		requireNonNull(type);
+		lookups.incrementAndGet();
+		return cache.get(type);
+	}
+
+	/**
+	 * @return a snapshot of the model cache's statistics, never <code>null</code>
+	 */
+	static ModelCacheStatistics statistics()
+	{
+		final long lookupCount = lookups.get();
+		final long buildCount = builds.get();
+		final long buildTime = buildTimeNanos.get();
+		return new ModelCacheStatistics()
+		{
+			public long hits()
+			{
+				return Math.max(0, lookupCount - buildCount);
+			}
+
+			public long builds()
+			{
+				return buildCount;
+			}
+
+			public long buildTimeNanos()
+			{
+				return buildTime;
+			}
+
+			@Override
+			public String toString()
+			{
+				return String.format("hits: %d, builds: %d, build time: %dns", hits(), builds(), buildTimeNanos());
+			}
+		};
+	}
+
+	final Class<?>						type;
+	final List<OptionDescriptor>		options;
+	final List<HelpOptionDescriptor>	helpOptions;
+	final List<CommandDescriptor>		commands;
+
+	/** options by long option name */
+	final Map<String, OptionDescriptor>		optionsByLongOption;
+	/** options by field name (as referenced by required expressions) */
+	final Map<String, OptionDescriptor>		optionsByFieldName;
+	/** help options by long option name */
+	final Map<String, HelpOptionDescriptor>	helpOptionsByLongOption;
+	/** options whose required expression is not constantly <code>false</code> */
+	final List<OptionDescriptor>				requirableOptions;
+	/** sub-commands by command name */
+	final Map<String, CommandDescriptor>		commandsByName;
+	/** options by long option name, looked up by a region of the raw arg */
+	final NameIndex<OptionDescriptor>			longOptionIndex;
+	/** help options by long option name, looked up by a region of the raw arg */
+	final NameIndex<HelpOptionDescriptor>		helpLongOptionIndex;
+	/**
+	 * the parsing contexts of the threads parsing against this model (see {@link CliParserImpl.ParsingCtx#acquire}).
+	 * Contexts are referenced softly: they refer to the model (and thus to the options type and its class loader),
+	 * which would otherwise be kept alive by every thread that ever parsed against it.
+	 */
+	final ThreadLocal<SoftReference<CliParserImpl.ParsingCtx>>	threadContexts	=
+			new ThreadLocal<SoftReference<CliParserImpl.ParsingCtx>>();
+	/** the encoded help text, rendered upon first request (see {@link CliParserImpl.HelpFormatter#helpBytes}) */
+	volatile byte[]								helpBytes;
+
+	/** size of the directly indexed short option tables (the ASCII range) */
+	private static final int					SHORT_OPTION_TABLE_SIZE	= 128;
+	/** options by short option character (ASCII range) */
+	private final OptionDescriptor[]			shortOptions			= new OptionDescriptor[SHORT_OPTION_TABLE_SIZE];
+	/** options by short option character (beyond the ASCII range) */
+	private final Map<Character, OptionDescriptor>	nonAsciiShortOptions	= new HashMap<Character, OptionDescriptor>();
+	/** help options by short option character (ASCII range) */
+	private final boolean[]						shortHelpOptions		= new boolean[SHORT_OPTION_TABLE_SIZE];
+	/** help option characters beyond the ASCII range */
+	private final Set<Character>				nonAsciiShortHelpOptions	= new HashSet<Character>();
+
+	private CliModel(Class<?> type)
+	{
+		this.type = type;
+		List<OptionDescriptor> options = new ArrayList<OptionDescriptor>();
+		List<HelpOptionDescriptor> helpOptions = new ArrayList<HelpOptionDescriptor>();
+		List<CommandDescriptor> commands = new ArrayList<CommandDescriptor>();
+		List<CommandDescriptor> groupCommands = new ArrayList<CommandDescriptor>();
+		GeneratedAccessor accessor = generatedAccessor(type);
+
+		// single traversal over the declared fields of the type and all of its supertypes
+		for (Class<?> c = type; c != null; c = c.getSuperclass())
+			for (Field field : c.getDeclaredFields())
+			{
+				Option option = field.getAnnotation(Option.class);
+				HelpOption helpOption = field.getAnnotation(HelpOption.class);
+				Command command = field.getAnnotation(Command.class);
+				SubCommands subCommands = field.getAnnotation(SubCommands.class);
+				if (option == null && helpOption == null && command == null && subCommands == null)
+					continue;
+
+				FieldAccess access;
+				if (accessor != null)
+					access = FieldAccess.generated(accessor, field.getName());
+				else
+				{
+					field.setAccessible(true);
+					access = FieldAccess.reflective(field);
+				}
+				if (option != null)
+					options.add(new OptionDescriptor(field, access, option, options.size()));
+				if (helpOption != null)
+					helpOptions.add(new HelpOptionDescriptor(field, helpOption));
+				if (command != null)
+					commands.add(new CommandDescriptor(field, access, command.name(), command.typeName()));
+				if (subCommands != null)
+					for (Map.Entry<String, String> subCommand : registeredSubCommands(field, subCommands.value())
+							.entrySet())
+						groupCommands.add(
+								new CommandDescriptor(field, access, subCommand.getKey(), subCommand.getValue()));
+			}
+
+		// sub-commands declared using @Command take precedence over equally named sub-commands of groups
+		Set<String> commandNames = new HashSet<String>();
+		for (CommandDescriptor command : commands)
+			commandNames.add(command.name);
+		for (CommandDescriptor command : groupCommands)
+			if (commandNames.add(command.name))
+				commands.add(command);
+
+		this.options = unmodifiableList(options);
+		this.helpOptions = unmodifiableList(helpOptions);
+		this.commands = unmodifiableList(commands);
+
+		// in case of ambiguities, the first declaration (i.e. the most specific one) wins
+		Map<String, OptionDescriptor> optionsByLongOption = new HashMap<String, OptionDescriptor>();
+		Map<String, OptionDescriptor> optionsByFieldName = new HashMap<String, OptionDescriptor>();
+		for (OptionDescriptor option : options)
+		{
+			putIfAbsent(optionsByLongOption, option.longOption, option);
+			putIfAbsent(optionsByFieldName, option.field.getName(), option);
+		}
+		Map<String, HelpOptionDescriptor> helpOptionsByLongOption = new HashMap<String, HelpOptionDescriptor>();
+		for (HelpOptionDescriptor helpOption : helpOptions)
+		{
+			putIfAbsent(helpOptionsByLongOption, helpOption.longOption, helpOption);
+			char c = helpOption.shortOption;
+			if (c == Option.NOT_SET)
+				continue;
+			if (c < SHORT_OPTION_TABLE_SIZE)
+				shortHelpOptions[c] = true;
+			else
+				nonAsciiShortHelpOptions.add(c);
+		}
+		List<OptionDescriptor> requirableOptions = new ArrayList<OptionDescriptor>();
+		for (OptionDescriptor option : options)
+		{
+			try
+			{
+				option.required = RequiredExprParser.compile(option.annotation.required(), optionsByFieldName);
+			}
+			catch (RuntimeException e)
+			{
+				throw new RuntimeException(format("invalid required expression on %s: %s", option.field,
+						e.getMessage()), e);
+			}
+			if (option.required != RequiredExprParser.FALSE)
+				requirableOptions.add(option);
+		}
+		Map<String, CommandDescriptor> commandsByName = new HashMap<String, CommandDescriptor>();
+		for (CommandDescriptor command : commands)
+			putIfAbsent(commandsByName, command.name, command);
+		for (OptionDescriptor option : options)
+		{
+			char c = option.shortOption;
+			if (!option.hasShortOption())
+				continue;
+			if (c >= SHORT_OPTION_TABLE_SIZE)
+				putIfAbsent(nonAsciiShortOptions, c, option);
+			else if (shortOptions[c] == null)
+				shortOptions[c] = option;
+		}
+
+		this.optionsByLongOption = unmodifiableMap(optionsByLongOption);
+		this.optionsByFieldName = unmodifiableMap(optionsByFieldName);
+		this.helpOptionsByLongOption = unmodifiableMap(helpOptionsByLongOption);
+		this.commandsByName = unmodifiableMap(commandsByName);
+		this.longOptionIndex = new NameIndex<OptionDescriptor>(optionsByLongOption);
+		this.helpLongOptionIndex = new NameIndex<HelpOptionDescriptor>(helpOptionsByLongOption);
+		this.requirableOptions = unmodifiableList(requirableOptions);
+	}
+
+	/**
+	 * @return the options type names of the sub-commands of the given group (provided by the registries visible to the
+	 *         field's declaring type), by command name (in the order of the names)
+	 */
+	private static Map<String, String> registeredSubCommands(Field field, String group)
+	{
+		ClassLoader loader = field.getDeclaringClass().getClassLoader();
+		Map<String, String> subCommands = new TreeMap<String, String>();
+		for (SubCommandRegistry registry : ServiceLoader.load(SubCommandRegistry.class, loader))
+			for (Map.Entry<String, String> subCommand : registry.subCommands(group).entrySet())
+				putIfAbsent(subCommands, subCommand.getKey(), requireNonNull(subCommand.getValue()));
+		return subCommands;
+	}
+
+	/**
+	 * @return the option denoted by the given short option character or <code>null</code> if there is none
+	 */
+	OptionDescriptor shortOption(char c)
+	{
+		return c < SHORT_OPTION_TABLE_SIZE ? shortOptions[c] : nonAsciiShortOptions.get(c);
+	}
+
+	/**
+	 * @return <code>true</code> iff the given character denotes a help option
+	 */
+	boolean isShortHelpOption(char c)
+	{
+		return c < SHORT_OPTION_TABLE_SIZE ? shortHelpOptions[c] : nonAsciiShortHelpOptions.contains(c);
+	}
+
+	private static <K, V> void putIfAbsent(Map<K, V> map, K key, V value)
+	{
+		if (!map.containsKey(key))
+			map.put(key, value);
+	}
+
+	/**
+	 * @return the accessor generated at compile time for the given type or <code>null</code> if there is none
+	 */
+	private static GeneratedAccessor generatedAccessor(Class<?> type)
+	{
+		Class<?> accessorType;
+		try
+		{
+			accessorType = Class.forName(type.getName() + GeneratedAccessor.SUFFIX, true, type.getClassLoader());
+		}
+		catch (ClassNotFoundException e)
+		{
+			return null; // not generated - fall back to reflection
+		}
+		if (!GeneratedAccessor.class.isAssignableFrom(accessorType))
+			return null;
+		try
+		{
+			return (GeneratedAccessor) accessorType.getDeclaredConstructor().newInstance();
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new RuntimeException("failed to create generated accessor: " + accessorType, e.getCause());
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException("failed to create generated accessor: " + accessorType, e);
+		}
+	}
+
+	/**
+	 * reads and writes the value of an annotated field of an options object.
+	 */
+	static abstract class FieldAccess
+	{
+		abstract Object get(Object options) throws Exception;
+
+		abstract void set(Object options, Object value) throws Exception;
+
+		/**
+		 * @param field
+		 *            must be accessible
+		 */
+		static FieldAccess reflective(final Field field)
+		{
+			final MethodHandle getter;
+			final MethodHandle setter;
+			try
+			{
+				Lookup lookup = MethodHandles.lookup();
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers))
+				{ // static fields' handles do not take the options object - ignore it
+					getter = MethodHandles.dropArguments(
+							lookup.unreflectGetter(field).asType(methodType(Object.class)), 0, Object.class);
+					setter = Modifier.isFinal(modifiers) ? null : MethodHandles.dropArguments(
+							lookup.unreflectSetter(field).asType(methodType(void.class, Object.class)), 0, Object.class);
+				}
+				else
+				{
+					getter = lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class));
+					setter = Modifier.isFinal(modifiers) ? null
+							: lookup.unreflectSetter(field).asType(methodType(void.class, Object.class, Object.class));
+				}
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new RuntimeException("failed to access field: " + field, e);
+			}
+			return new FieldAccess()
+			{
+				Object get(Object options) throws Exception
+				{
+					try
+					{
+						return (Object) getter.invokeExact(options);
+					}
+					catch (Throwable t)
+					{
+						throw rethrow(t);
+					}
+				}
+
+				void set(Object options, Object value) throws Exception
+				{
+					if (setter == null)
+					{ // method handles do not permit writing final fields - fall back to reflection
+						field.set(options, value);
+						return;
+					}
+					try
+					{
+						setter.invokeExact(options, value);
+					}
+					catch (Throwable t)
+					{
+						throw rethrow(t);
+					}
+				}
+			};
+		}
+
+		private static Exception rethrow(Throwable t)
+		{
+			if (t instanceof Error)
+				throw (Error) t;
+			if (t instanceof Exception)
+				return (Exception) t;
+			return new RuntimeException(t);
+		}
+
+		static FieldAccess generated(final GeneratedAccessor accessor, final String fieldName)
+		{
+			return new FieldAccess()
+			{
+				Object get(Object options)
+				{
+					return accessor.get(options, fieldName);
+				}
+
+				void set(Object options, Object value)
+				{
+					accessor.set(options, fieldName, value);
+				}
+			};
+		}
+	}
+
+	/**
+	 * immutable description of a field annotated with {@link Option}.
+	 */
+	static final class OptionDescriptor
+	{
+		final Field			field;
+		final FieldAccess	access;
+		final Option		annotation;
+		/** the position of this option within its model */
+		final int			ordinal;
+		/** writes converted values to the field (according to the field's type) */
+		final FieldBinder	binder;
+		/** the short option character or {@link Option#NOT_SET} if there is none */
+		final char			shortOption;
+		final String		longOption;
+		final boolean		collectionType;
+		final boolean		arrayType;
+		final boolean		flag;
+		/** the compiled required expression (assigned once while the model is built) */
+		RequiredExprParser.Expr	required;
+
+		private OptionDescriptor(Field field, FieldAccess access, Option annotation, int ordinal)
+		{
+			this.field = field;
+			this.access = access;
+			this.annotation = annotation;
+			this.ordinal = ordinal;
+			this.shortOption = resolveShortOption(annotation.shortOption(), field);
+			this.longOption = resolveLongOption(annotation.longOption(), field);
+			this.collectionType = Collection.class.isAssignableFrom(field.getType());
+			this.arrayType = field.getType().isArray();
+			this.flag = field.getType() == Boolean.TYPE;
+			this.binder = FieldBinder.forOption(this);
+		}
+
+		boolean hasShortOption()
+		{
+			return shortOption != Option.NOT_SET;
+		}
+
+		boolean isCollectionOrArray()
+		{
+			return collectionType || arrayType;
+		}
+
+		/**
+		 * @return the amount of parameters the option expects, insensitive of the actual arguments (-1 for an
+		 *         arbitrary amount)
+		 */
+		int formalArgCount()
+		{
+			if (annotation.argCount() != Option.ARG_COUNT_DEFAULT_BEHAVIOUR)
+				return annotation.argCount();
+			if (isCollectionOrArray())
+				return Option.ARG_COUNT_DEFAULT_BEHAVIOUR;
+			return flag ? 0 : 1;
+		}
+	}
+
+	/**
+	 * immutable description of a field annotated with {@link HelpOption}.
+	 */
+	static final class HelpOptionDescriptor
+	{
+		final Field			field;
+		final HelpOption	annotation;
+		/** the short option character or {@link Option#NOT_SET} if there is none */
+		final char			shortOption;
+		final String		longOption;
+
+		private HelpOptionDescriptor(Field field, HelpOption annotation)
+		{
+			this.field = field;
+			this.annotation = annotation;
+			this.shortOption = resolveShortOption(annotation.shortOption(), field);
+			this.longOption = resolveLongOption(annotation.longOption(), field);
+		}
+	}
+
+	/**
+	 * description of a sub-command, i.e. of a field annotated with {@link Command} or of a sub-command of a field
+	 * annotated with {@link SubCommands}. The sub-command's options type is resolved upon first use if it is given by
+	 * name.
+	 */
+	static final class CommandDescriptor
+	{
+		final Field					field;
+		final FieldAccess			access;
+		final String				name;
+		/** the name of the options type, <code>null</code> if it is the field's type */
+		final String				typeName;
+		private volatile Class<?>	type;
+
+		private CommandDescriptor(Field field, FieldAccess access, String name, String typeName)
+		{
+			this.field = field;
+			this.access = access;
+			this.name = name;
+			this.typeName = typeName.isEmpty() ? null : typeName;
+			if (this.typeName == null)
+				this.type = field.getType();
+		}
+
+		/**
+		 * @return the sub-command's options type (loaded upon the first invocation if it is given by name), never
+		 *         <code>null</code>
+		 */
+		Class<?> type()
+		{
+			Class<?> t = type;
+			if (t == null) // loading concurrently is harmless - the results are equal
+				type = t = loadType();
+			return t;
+		}
+
+		private Class<?> loadType()
+		{
+			Class<?> t;
+			try
+			{
+				t = Class.forName(typeName, false, field.getDeclaringClass().getClassLoader());
+			}
+			catch (ClassNotFoundException e)
+			{
+				throw new RuntimeException(format("failed to load the options type of sub-command '%s': %s", name,
+						typeName), e);
+			}
+			if (!field.getType().isAssignableFrom(t))
+				throw new RuntimeException(format("the options type of sub-command '%s' (%s) cannot be assigned to %s",
+						name, typeName, field));
+			return t;
+		}
+	}
+
+	private static char resolveShortOption(char declared, Field field)
+	{
+		if (declared != Option.NOT_SET)
+			return declared;
+		// fallback to field name:
+		String fieldName = field.getName();
+		return fieldName.length() == 1 ? fieldName.charAt(0) : Option.NOT_SET;
+	}
+
+	private static String resolveLongOption(String declared, Field field)
+	{
+		// fallback to field name:
+		return declared == null || declared.isEmpty() ? field.getName() : declared;
+	}
+}
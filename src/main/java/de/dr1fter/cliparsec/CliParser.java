@@ -1,11 +1,22 @@
 package de.dr1fter.cliparsec;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Objects.requireNonNull;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.google.common.base.Supplier;
 
 /**
  * The CLI parser. It accepts both an annotated options object and the actual command line arguments.
+ * <p>
+ * Parsers are thread-safe: the command line interface model derived from an options type is immutable and shared,
+ * whereas all state of a parsing run is confined to the invoking thread. Each message is written to the output stream
+ * using a single write, without any locking. If concurrent parsing runs share an output stream that does not
+ * serialise writes itself, synchronising on it is the caller's responsibility.
  * 
  * @author Christian Cwienk (dr1fter)
  * 
@@ -32,13 +43,83 @@ public abstract class CliParser
 	 */
 	public static CliParser createCliParser(OutputStream out)
 	{
-		checkNotNull(out);
+		requireNonNull(out);
 		return new CliParserImpl(out);
 	}
-	
+
+	/**
+	 * returns a snapshot of the statistics of the (process-wide) cache of command line interface models. Models are
+	 * derived from options types upon their first use and are shared by all parsers.
+	 *
+	 * @return never <code>null</code>
+	 */
+	public static ModelCacheStatistics modelCacheStatistics()
+	{
+		return CliModel.statistics();
+	}
+
+	/**
+	 * derives the command line interface model of the given options type up-front (unless it is cached already),
+	 * without parsing anything. Subsequent parsing runs for the type do not pay for deriving the model.
+	 *
+	 * @param optionsType
+	 *            not <code>null</code>
+	 * @throws RuntimeException
+	 *             if the options type is invalid
+	 */
+	public static void prepare(Class<?> optionsType)
+	{
+		CliModel.of(optionsType);
+	}
+
+	/**
+	 * returns a parser that behaves like this one, additionally reporting the timings of the phases of each parsing
+	 * run to the given listener (replacing the listener of this parser, if any). This parser is not changed.
+	 * 
+	 * @param listener
+	 *            not <code>null</code>
+	 * @return never <code>null</code>
+	 * @throws UnsupportedOperationException
+	 *             if not overridden (parsers created by this class support listeners)
+	 */
+	public CliParser withListener(ParseListener listener)
+	{
+		throw unsupported("parse listeners");
+	}
+
+	/**
+	 * returns a parser that behaves like this one, additionally measuring the heap allocations and the CPU time of
+	 * each parsing run (see {@link ParsingResult#resourceUsage()}). Allocations are measured using the per-thread
+	 * allocation counters of HotSpot-based JVMs. This parser is not changed (and does not measure anything).
+	 * 
+	 * @return never <code>null</code>
+	 * @throws UnsupportedOperationException
+	 *             if not overridden (parsers created by this class support resource accounting)
+	 */
+	public CliParser withResourceAccounting()
+	{
+		throw unsupported("resource accounting");
+	}
+
+	/**
+	 * returns a parser that behaves like this one, additionally expanding response files: arguments of the form
+	 * <code>@path</code> are replaced by the arguments read from the denoted response file (one argument per line or
+	 * NUL-delimited, optionally quoted; response files may be nested). Response files are read lazily as parsing
+	 * advances. Use <code>@@arg</code> to pass an argument starting with <code>@</code>. This parser is not changed
+	 * (and passes all arguments unchanged).
+	 * 
+	 * @return never <code>null</code>
+	 * @throws UnsupportedOperationException
+	 *             if not overridden (parsers created by this class support response files)
+	 */
+	public CliParser withResponseFiles()
+	{
+		throw unsupported("response files");
+	}
+
 	/**
 	 * parses the given command line arguments into the given annotated options object according to the rules declared
-	 * on said object.
+	 * on said object. Response files are only expanded if enabled (see {@link #withResponseFiles()}).
 	 * 
 	 * @param options
 	 *            not <code>null</code>
@@ -51,10 +132,105 @@ public abstract class CliParser
 	public abstract <T> ParsingResult<T> parse(T options, String... rawArgs)
 			throws Exception;
 
+	/**
+	 * parses the given command line arguments (see {@link #parse(Object, String...)}), writing output (if any) to the
+	 * given output stream rather than to the parser's output stream.
+	 * 
+	 * @param options
+	 *            not <code>null</code>
+	 * @param out
+	 *            not <code>null</code>
+	 * @param rawArgs
+	 *            not <code>null</code>
+	 * @return never <code>null</code>
+	 * @throws Exception
+	 *             on invalid arguments
+	 * @throws UnsupportedOperationException
+	 *             if not overridden (parsers created by this class support per-call output streams)
+	 */
+	public <T> ParsingResult<T> parse(T options, OutputStream out, String... rawArgs)
+			throws Exception
+	{
+		throw unsupported("per-call output streams");
+	}
+
+	/**
+	 * parses the command line arguments returned by the given iterator into the given annotated options object (see
+	 * {@link #parse(Object, String...)}). Options are parsed eagerly, whereas the operands are only read from the
+	 * iterator as they are consumed using {@link ParsingResult#operandIterator()}. Thus, arbitrarily many operands may
+	 * be passed without holding them in memory.
+	 * 
+	 * @param options
+	 *            not <code>null</code>
+	 * @param rawArgs
+	 *            not <code>null</code>, must not return <code>null</code> elements
+	 * @return never <code>null</code>
+	 * @throws Exception
+	 *             on invalid arguments
+	 */
+	public <T> ParsingResult<T> parse(T options, Iterator<String> rawArgs)
+			throws Exception
+	{
+		// fallback for parsers not overriding this method: all args are read up-front
+		List<String> args = new ArrayList<String>();
+		while (rawArgs.hasNext())
+			args.add(rawArgs.next());
+		return parse(options, args.toArray(new String[args.size()]));
+	}
+
+	/**
+	 * parses each of the given argument vectors into a new options object (see {@link #parse(Object, String...)}).
+	 * The vectors are parsed in parallel by a shared fork-join pool sized to the number of available processors.
+	 * 
+	 * @param options
+	 *            creates an options object per argument vector, not <code>null</code>
+	 * @param argVectors
+	 *            not <code>null</code>
+	 * @return the parsing results in the order of the argument vectors, never <code>null</code>. Parsing failures do
+	 *         not abort the batch, but are returned as results with status {@link ParsingResult.Status#ERROR} (see
+	 *         {@link ParsingResult#failure()}).
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting for the batch to complete
+	 */
+	public <T> List<ParsingResult<T>> parseAll(Supplier<T> options, List<String[]> argVectors)
+			throws InterruptedException
+	{
+		return parseAll(options, argVectors, BatchParser.defaultExecutor());
+	}
+
+	/**
+	 * parses each of the given argument vectors into a new options object using the given executor (see
+	 * {@link #parseAll(Supplier, List)}).
+	 * 
+	 * @param executor
+	 *            not <code>null</code>
+	 */
+	public <T> List<ParsingResult<T>> parseAll(Supplier<T> options, List<String[]> argVectors, Executor executor)
+			throws InterruptedException
+	{
+		requireNonNull(options);
+		requireNonNull(argVectors);
+		requireNonNull(executor);
+		return new BatchParser<T>(this, options, argVectors).run(executor);
+	}
+
+	private UnsupportedOperationException unsupported(String feature)
+	{
+		return new UnsupportedOperationException(getClass().getName() + " does not support " + feature);
+	}
+
 	protected final OutputStream out;
-	
+
+	/**
+	 * creates a parser writing output (if any) to the System.out output stream.
+	 */
+	protected CliParser()
+	{
+		this(System.out);
+	}
+
 	protected CliParser(OutputStream out)
 	{
-		this.out = checkNotNull(out);
+		this.out = requireNonNull(out);
 	}
 }
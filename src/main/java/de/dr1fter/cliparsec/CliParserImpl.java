@@ -1,56 +1,33 @@
 package de.dr1fter.cliparsec;
 
-import static com.google.common.base.Joiner.on;
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Predicates.compose;
-import static com.google.common.base.Predicates.equalTo;
-import static com.google.common.base.Predicates.notNull;
-import static com.google.common.base.Predicates.or;
-import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.base.Strings.padEnd;
-import static com.google.common.collect.FluentIterable.from;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Sets.newHashSet;
-import static de.dr1fter.cliparsec.ArrayUtils.insertAfter;
-import static de.dr1fter.cliparsec.ArrayUtils.tail;
 import static de.dr1fter.cliparsec.ParsingResult.Status.ERROR;
 import static de.dr1fter.cliparsec.ParsingResult.Status.HELP;
 import static de.dr1fter.cliparsec.ParsingResult.Status.SUCCESS;
 import static de.dr1fter.cliparsec.ParsingResultImpl.fromCommandStrStack;
-import static de.dr1fter.cliparsec.ReflectionUtils.allFieldsAsAccessible;
-import static de.dr1fter.cliparsec.ReflectionUtils.hasAnnotation;
 import static de.dr1fter.cliparsec.ReflectionUtils.tryToCreateInstance;
 import static java.lang.String.format;
-import static java.lang.reflect.Array.newInstance;
-import static java.util.Arrays.asList;
 import static java.util.Arrays.copyOf;
-import static java.util.Arrays.copyOfRange;
-import static java.util.Collections.emptySet;
-import static java.util.Collections.singleton;
+import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
 import java.util.ArrayDeque;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 import com.google.common.annotations.Beta;
-import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 
+import de.dr1fter.cliparsec.CliModel.CommandDescriptor;
+import de.dr1fter.cliparsec.CliModel.HelpOptionDescriptor;
+import de.dr1fter.cliparsec.CliModel.OptionDescriptor;
 import de.dr1fter.cliparsec.CliParserImpl.ParsingCtx.FieldRegistration;
-import de.dr1fter.cliparsec.annotations.Command;
-import de.dr1fter.cliparsec.annotations.HelpOption;
 import de.dr1fter.cliparsec.annotations.Option;
 
 /**
@@ -59,13 +36,46 @@ import de.dr1fter.cliparsec.annotations.Option;
  */
 class CliParserImpl extends CliParser
 {
+	/** the listener receiving the timings of the parsing phases, <code>null</code> if there is none */
+	private final ParseListener	listener;
+	/** whether or not the resources consumed by parsing runs are measured (see {@link ResourceAccounting}) */
+	private final boolean		accountResources;
+	/**
+	 * whether or not <code>@path</code> args are replaced by the contents of response files (see {@link ResponseFiles})
+	 */
+	private final boolean		responseFiles;
+
 	CliParserImpl()
-	{		super(System.out);
+	{		this(System.out, null, false, false);
 	}
 
 	CliParserImpl(OutputStream outStream)
 	{
-		super(checkNotNull(outStream));
+		this(outStream, null, false, false);
+	}
+
+	private CliParserImpl(OutputStream outStream, ParseListener listener, boolean accountResources,
+			boolean responseFiles)
+	{
+		super(requireNonNull(outStream));
+		this.listener = listener;
+		this.accountResources = accountResources;
+		this.responseFiles = responseFiles;
+	}
+
+	public CliParser withListener(ParseListener listener)
+	{
+		return new CliParserImpl(out, requireNonNull(listener), accountResources, responseFiles);
+	}
+
+	public CliParser withResourceAccounting()
+	{
+		return new CliParserImpl(out, listener, true, responseFiles);
+	}
+
+	public CliParser withResponseFiles()
+	{
+		return new CliParserImpl(out, listener, accountResources, true);
 	}
 
 	/**
@@ -82,191 +92,210 @@ class CliParserImpl extends CliParser
 	 */
 	public <T> ParsingResult<T> parse(T options, String... rawArgs) throws Exception
 	{
-		return parse(null,options,rawArgs);
+		return parse(options, out, rawArgs);
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> ParsingResult<T> parse(ParsingCtx lastCtx, T options, String... rawArgs) throws Exception
+	public <T> ParsingResult<T> parse(T options, OutputStream out, String... rawArgs) throws Exception
 	{
-		checkNotNull(options);
-		checkNotNull(rawArgs);
+		requireNonNull(out);
+		requireNonNull(rawArgs);
+		Args args = responseFiles && ResponseFiles.containsResponseFiles(rawArgs) ? new Args(
+				ResponseFiles.expand(rawArgs)) : new Args(rawArgs);
+		return parse(new Invocation(args, out, listener), options);
+	}
 
-		Class<?> clazz = options.getClass();
-		Iterable<Field> optionFields = annotatedOptionFields(clazz);
-		Iterable<Field> helpOptionFields = annotatedHelpOptionFields(clazz);
+	public <T> ParsingResult<T> parse(T options, Iterator<String> rawArgs) throws Exception
+	{
+		requireNonNull(rawArgs);
+		Args args = new Args(responseFiles ? ResponseFiles.expand(rawArgs) : rawArgs);
+		return parse(new Invocation(args, out, listener), options);
+	}
 
-		Iterable<CommandRegistration> commands = annotatedCommands(clazz);
+	/**
+	 * parses all args of the given invocation, measuring the consumed resources if requested.
+	 */
+	private <T> ParsingResult<T> parse(Invocation invocation, T options) throws Exception
+	{
+		if (!accountResources)
+			return parse(invocation, options, 0);
 
-		ParsingCtx ctx = new ParsingCtx(rawArgs, optionFields, helpOptionFields, commands);
-		cpLastCtx(lastCtx,ctx);
+		ResourceAccounting accounting = ResourceAccounting.start();
+		ParsingResultImpl<T> result = (ParsingResultImpl<T>) parse(invocation, options, 0);
+		result.resourceUsageOrNull = accounting.stop();
+		return result;
+	}
 
-		for (; ctx.hasNext();)
-		{
-			ctx.determineAndConsumeNextFields();
-			ctx.setOrAppendToField(options);
-		}
+	/**
+	 * parses the args starting at the given position (the args preceding it were parsed by the parent commands).
+	 */
+	private <T> ParsingResult<T> parse(Invocation invocation, T options, int start) throws Exception
+	{
+		requireNonNull(options);
 
-		String[] remainder = ctx.remainingArgs();
+		ParseListener listener = invocation.listener;
+		long started = listener == null ? 0 : System.nanoTime();
+		CliModel model = CliModel.of(options.getClass());
+		if (listener != null)
+			listener.modelResolved(model.type, System.nanoTime() - started);
 
-		//display help and exit if help option was specified or there was no arg at all
-		if(ctx.helpOption() && remainder.length == 0 
-				|| (rawArgs.length == 0 && helpOptionFields.iterator().hasNext()))
+		ParsingCtx ctx = ParsingCtx.acquire(model, invocation, start);
+		try
 		{
-			OutputStreamWriter osw = new OutputStreamWriter(out);
-			osw.write(HelpFormatter.formatHelp(ctx));
-			osw.flush();
-			return new ParsingResultImpl<T>(options,HELP,remainder, fromCommandStrStack(ctx.getCmdStack()));
+			return parseUsing(ctx, options);
 		}
+		finally
+		{
+			ctx.release();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> ParsingResult<T> parseUsing(ParsingCtx ctx, T options) throws Exception
+	{
+		CliModel model = ctx.model;
+		ParseListener listener = ctx.invocation.listener;
+
+		// short-circuit help requests (neither converting nor binding any values)
+		if (ctx.helpRequested())
+			return printHelp(ctx, options);
+
+		if (listener == null)
+			for (; ctx.hasNext();)
+			{
+				ctx.determineAndConsumeNextFields();
+				ctx.setOrAppendToField(options);
+			}
+		else
+			parseOptionsTimed(ctx, options, listener);
+		ctx.completeBindings(options);
 
-		List<FieldRegistration> missingArgs = from(ctx.allOptionFields)
-			.filter(ParsingCtx.Utils.absent())
-			.filter(RequiredExprParser.Utils.required(new RequiredExprParser(ctx))).toList();
+		boolean hasRemainder = ctx.hasRemainingArgs();
+
+		//display help and exit if help option was specified or there was no arg at all
+		if(ctx.helpOption() && !hasRemainder
+				|| (!ctx.args.has(ctx.start) && !model.helpOptions.isEmpty()))
+			return printHelp(ctx, options);
+
+		long started = listener == null ? 0 : System.nanoTime();
+		List<FieldRegistration> missingArgs = ctx.missingRequiredOptions();
+		if (listener != null)
+			listener.requiredEvaluated(model.type, System.nanoTime() - started);
 		if(!missingArgs.isEmpty())
 		{
 			StringBuilder s = new StringBuilder("ERROR: the following arguments are required but were not present: ");
-			s.append(on('\n').join(from(missingArgs).transform(ParsingCtx.Utils.selectArgDescription())))
-				.append("\n");
-			OutputStreamWriter osw = new OutputStreamWriter(out);
-			osw.write(s.toString());
-			osw.flush();
-			return new ParsingResultImpl<T>(options, ERROR, remainder, fromCommandStrStack(ctx.getCmdStack()));
+			for (int i = 0; i < missingArgs.size(); i++)
+				s.append(i == 0 ? "" : "\n").append(ParsingCtx.Utils.argDescription(missingArgs.get(i).descriptor));
+			s.append("\n");
+			print(ctx.invocation.out, s.toString());
+			return new ParsingResultImpl<T>(options, ERROR, ctx.operands(), fromCommandStrStack(ctx.getCmdStack()));
 		}
 
-		if (remainder.length == 0 || ctx.state == ParsingCtx.ParsingState.OPERANDS)
-			return new ParsingResultImpl<T>(options,SUCCESS, remainder, fromCommandStrStack(ctx.getCmdStack()));
+		if (!hasRemainder || ctx.state == ParsingCtx.ParsingState.OPERANDS)
+			return new ParsingResultImpl<T>(options,SUCCESS, ctx.operands(), fromCommandStrStack(ctx.getCmdStack()));
 
 		// parse sub command if such a command exists.
-		CommandRegistration subCommand = determineSubCommand_orFail(
-				remainder[0], commands);
+		started = listener == null ? 0 : System.nanoTime();
+		String command = ctx.consume();
+		CommandDescriptor subCommand = determineSubCommand_orFail(
+				command, model);
 		initialiseSubCommand_ifRequired(subCommand,options);
-		ctx.pushCommand(remainder[0]);
+		ctx.pushCommand(command);
+		if (listener != null)
+			listener.subCommandEntered(model.type, command, System.nanoTime() - started);
 
-		return (ParsingResult<T>) parse(ctx, subCommand.field.get(options), tail(remainder));
+		// the sub command's args are parsed in place (rather than being copied)
+		return (ParsingResult<T>) parse(ctx.invocation, subCommand.access.get(options), ctx.pos);
 	}
 
-	/**
-	 * copies a subset of a previous parsing ctx into the given new parsing ctx. if previous parsing ctx is the
-	 * null reference, nothing is done.
-	 * 
-	 * @param lastCtxOrNull may be <code>null</code>
-	 * @param newCtx the new ctx to copy to, not <code>null</code>
-	 */
-	private void cpLastCtx(ParsingCtx lastCtxOrNull, ParsingCtx newCtx)
+	private static <T> ParsingResult<T> printHelp(ParsingCtx ctx, T options) throws IOException
 	{
-		if(lastCtxOrNull == null) return;
-		newCtx.commands = lastCtxOrNull.commands;
-		newCtx.helpOption = lastCtxOrNull.helpOption;
-		//TODO: use another approach for ctx-inheritance / nesting. e.g. make ctx hierarchical?
+		ParseListener listener = ctx.invocation.listener;
+		long started = listener == null ? 0 : System.nanoTime();
+		print(ctx.invocation.out, HelpFormatter.helpBytes(ctx.model));
+		if (listener != null)
+			listener.helpRendered(ctx.model.type, System.nanoTime() - started);
+		return new ParsingResultImpl<T>(options, HELP, ctx.operands(), fromCommandStrStack(ctx.getCmdStack()));
 	}
 
-	private <T> void initialiseSubCommand_ifRequired(CommandRegistration subCommand, T options)
+	/**
+	 * parses the options of the current command level (like the untimed loop in {@link #parseUsing(ParsingCtx,
+	 * Object)}), measuring the time spent per phase and reporting it to the given listener.
+	 */
+	private static <T> void parseOptionsTimed(ParsingCtx ctx, T options, ParseListener listener) throws Exception
 	{
-		Field commandField = subCommand.field;
-		commandField.setAccessible(true);
-		
-		try
+		long tokenisation = 0;
+		long resolution = 0;
+		for (long started = System.nanoTime();; started = System.nanoTime())
 		{
-			Field declaredField = options.getClass().getDeclaredField(commandField.getName());
-			if(declaredField.isAccessible())
-				options.getClass().getField(commandField.getName());
-			declaredField.setAccessible(true);
-			
-			if (commandField.get(options) != null) return; //was initialised - keep existing
-			Object subCommandObject = tryToCreateInstance(commandField.getType(),options);
-			commandField.set(options, subCommandObject);
+			boolean hasNext = ctx.hasNext();
+			if (hasNext && ctx.classifyNextOption())
+			{
+				long classified = System.nanoTime();
+				tokenisation += classified - started;
+				ctx.resolveCurrentFields();
+				resolution += System.nanoTime() - classified;
+			}
+			else
+				tokenisation += System.nanoTime() - started;
+			if (!hasNext)
+				break;
+			ctx.setOrAppendToField(options);
 		}
-		catch(Exception e){ /*ignore*/ }
-		
-	}
-
-	private CommandRegistration determineSubCommand_orFail(String rawCmdArg,
-			Iterable<CommandRegistration> commands)
-	{
-		Optional<CommandRegistration> subCommand = 
-				from(commands)
-				.firstMatch(CommandRegistration.commandWithName(rawCmdArg));
-		
-		if(subCommand.isPresent()) return subCommand.get();
-		
-		Iterable<String> commandNames = transform(commands, CommandRegistration.getCommandName);		
-		String subCmdDescription = on(',').join(commandNames);
-
-		throw new RuntimeException(format(
-				"unexpected token: '%s' - expected a sub-command (one of: %s)",
-				rawCmdArg, subCmdDescription));
+		listener.tokenised(ctx.model.type, tokenisation);
+		listener.optionsResolved(ctx.model.type, resolution);
+		ctx.reportConversions(listener);
 	}
 
 	/**
-	 * determines and returns all fields from the given class that are annotated with the Options annotation
-	 * 
-	 * @param clazz
-	 *            not <code>null</code>
-	 * @return never <code>null</code>
+	 * writes the given message to the given sink using a single write. No lock is held, thus a blocking sink only
+	 * stalls the invocation writing to it.
 	 */
-	private Iterable<Field> annotatedOptionFields(Class<?> clazz)
+	private static void print(OutputStream out, String message) throws IOException
 	{
-		return from(allFieldsAsAccessible(clazz))
-				.filter(hasAnnotation(Option.class));				
+		print(out, message.getBytes(Charset.defaultCharset()));
 	}
-	
-	private Iterable<Field> annotatedHelpOptionFields(Class<?> clazz)
+
+	private static void print(OutputStream out, byte[] bytes) throws IOException
 	{
-		return from(allFieldsAsAccessible(clazz))
-				.filter(hasAnnotation(HelpOption.class));
-	}
-	
-	private Iterable<CommandRegistration> annotatedCommands(Class<?> clazz)
-	{		
-		return
-				from(allFieldsAsAccessible(clazz))
-				.filter(hasAnnotation(Command.class))
-				.filter(notNull())
-				.transform(CommandRegistration.createCommandRegistation);		
+		out.write(bytes, 0, bytes.length);
+		out.flush();
 	}
 
-	private static class CommandRegistration
+	private <T> void initialiseSubCommand_ifRequired(CommandDescriptor subCommand, T options)
 	{
-		public final Field		field;
-		public final Command	annotation;	//TODO: implement a type 'EvaluatedCommand' that wraps interpreting 
-											//the annotation (calculate effective argCount etc.)
-
-		public CommandRegistration(Field field, Command annotation)
+		Class<?> type = subCommand.type(); // lazy sub-commands' types are loaded upon selection only
+		Object subCommandObject;
+		try
 		{
-			this.field = field;
-			this.annotation = annotation;
+			if (type.isInstance(subCommand.access.get(options))) return; //was initialised - keep existing
+			subCommand.access.set(options, tryToCreateInstance(type, options));
+			subCommandObject = subCommand.access.get(options);
 		}
-
-		/**
-		 * function for usage w/ 'google-collections' - returns a cmd registration's command name.
-		 */
-		private final static Function<CommandRegistration, String>	getCommandName	= 
-				new Function<CommandRegistration, String>()
-				{
-					public String apply(CommandRegistration commandRegistration)
-					{
-						return commandRegistration.annotation.name();
-					}
-				};
-				
-		private final static Function<Field,CommandRegistration> createCommandRegistation =
-				new Function<Field,CommandRegistration>()
-				{
-					public CommandRegistration apply(Field field)
-					{
-						checkNotNull(field);
-						Command commandAnnotation = field.getAnnotation(Command.class);
-						if (commandAnnotation == null) return null;
-						return new CommandRegistration(field, commandAnnotation);
-					}
-				};
-				
-		public final static Predicate<CommandRegistration> commandWithName(final String name)
+		catch (Exception e)
 		{
-			return Predicates.compose(Predicates.equalTo(name), getCommandName);			
+			throw new RuntimeException(format("failed to initialise sub-command '%s' (of type %s)", subCommand.name,
+					type.getName()), e);
 		}
+		if (!type.isInstance(subCommandObject))
+			throw new RuntimeException(format("failed to initialise sub-command '%s': field %s does not hold an "
+					+ "instance of %s after assignment", subCommand.name, subCommand.field, type.getName()));
+	}
+
+	private CommandDescriptor determineSubCommand_orFail(String rawCmdArg, CliModel model)
+	{
+		CommandDescriptor subCommand = model.commandsByName.get(rawCmdArg);
+		
+		if(subCommand != null) return subCommand;
 		
+		StringBuilder subCmdDescription = new StringBuilder();
+		for (CommandDescriptor command : model.commands)
+			subCmdDescription.append(subCmdDescription.length() == 0 ? "" : ",").append(command.name);
+
+		throw new RuntimeException(format(
+				"unexpected token: '%s' - expected a sub-command (one of: %s)",
+				rawCmdArg, subCmdDescription));
 	}
-	
+
 	/**
 	 * the delimiter character sequence that may optionally be specified to mark the end of options.
 	 * any arguments that occur after this separator are treated as operands which are to be passed
@@ -276,32 +305,133 @@ class CliParserImpl extends CliParser
 	private static final String	DASH	= "-";
 	private static final String DDASH	= DASH + DASH;
 	
-	static class ParsingCtx
+	/**
+	 * the state of a single invocation of parse, shared by the parsing contexts of all (nested) command levels.
+	 */
+	static final class Invocation
 	{
-		private Deque<String> commands = new ArrayDeque<String>();
-		
-		private final Set<FieldRegistration>		allOptionFields;
-		private final Set<HelpOptionFieldRegistration>	helpOptionFields;
+		final Args			args;
+		/** the sink for help and error messages */
+		final OutputStream	out;
+		/** the names of the selected (sub-)commands, the innermost one first */
+		final Deque<String>	commands	= new ArrayDeque<String>();
+		/** the listener receiving the timings of the parsing phases, <code>null</code> if there is none */
+		final ParseListener	listener;
+		boolean				helpOption;
+
+		Invocation(Args args, OutputStream out, ParseListener listener)
+		{
+			this.args = args;
+			this.out = out;
+			this.listener = listener;
+		}
+	}
 
-		private Iterable<FieldRegistration>			currentFields	= null;
-		private String[]							args;
+	static class ParsingCtx
+	{
+		private final List<FieldRegistration>		allOptionFields;
+		/** the options with buffered values (see {@link #completeBindings(Object)}) */
+		private final List<FieldRegistration>		bufferedFields	= new ArrayList<FieldRegistration>();
+		/** the ordinals of all options that were present */
+		private final BitSet						present;
+		private final List<HelpOptionDescriptor>	helpOptionFields;
+
+		/** the fields denoted by the current option argument (more than one for grouped short options) */
+		private FieldRegistration[]					currentFields	= new FieldRegistration[4];
+		private int									currentFieldCount	= 0;
+		private Args								args;
+		/** the position of the first arg to be parsed by this ctx */
+		private int									start			= 0;
 		private int									pos				= 0;
+		/** the value attached to the last consumed option (--option=value), if not yet consumed */
+		private String								attachedValue	= null;
 		private ParsingState						state			= ParsingState.OPTIONS;
-		private boolean 							helpOption 		= false;
+		private Invocation							invocation;
+		/** the option arg classified last (see {@link #classifyNextOption()}) */
+		private String								currentArg;
+		private int									currentPrefixLength;
+		private int									currentOptionEnd;
+		/** whether or not value conversions are timed (only if there is a listener) */
+		private boolean								timeConversions;
+		/** the time spent converting values, by option ordinal (created upon first use) */
+		private long[]								conversionNanos;
+		/** the amount of converted values, by option ordinal (created upon first use) */
+		private int[]								conversionCounts;
+
+		private final List<CommandDescriptor>		subCommands;
+		private final CliModel						model;
+		/** whether or not the ctx is used by a (possibly not yet completed) parsing run */
+		private boolean								inUse;
+
+		private ParsingCtx(CliModel model)
+		{
+			this.model = model;
+			this.allOptionFields = new ArrayList<FieldRegistration>(model.options.size());
+			this.present = new BitSet(model.options.size());
+			for (OptionDescriptor option : model.options)
+				this.allOptionFields.add(new FieldRegistration(option));
+			this.helpOptionFields = model.helpOptions;
+			this.subCommands = model.commands;
+		}
 
-		private final Iterable<CommandRegistration>	subCommands;
+		/**
+		 * returns the current thread's parsing ctx for the given model, reset for parsing the given args. A ctx is
+		 * reused by subsequent parsing runs of the thread against the same model, so that its field registrations,
+		 * buffers and bit sets are allocated only once per thread. A new ctx is created if there is none (anymore) or
+		 * if it is still in use (i.e. parse was re-entered from within a
+		 * parsing run, e.g. by a converter or for a sub-command of the same type).
+		 * 
+		 * @param start
+		 *            the position of the first arg to parse
+		 * @return the ctx, to be released after parsing (see {@link #release()})
+		 */
+		static ParsingCtx acquire(CliModel model, Invocation invocation, int start)
+		{
+			SoftReference<ParsingCtx> reference = model.threadContexts.get();
+			ParsingCtx ctx = reference == null ? null : reference.get();
+			if (ctx == null)
+				model.threadContexts.set(new SoftReference<ParsingCtx>(ctx = new ParsingCtx(model)));
+			else if (ctx.inUse)
+				ctx = new ParsingCtx(model);
+
+			ctx.inUse = true;
+			ctx.invocation = invocation;
+			ctx.args = invocation.args;
+			ctx.start = ctx.pos = start;
+			ctx.timeConversions = invocation.listener != null;
+			return ctx;
+		}
 
-		public ParsingCtx(String[] args, Iterable<Field> optionFields, Iterable<Field> helpOptionFields,
-				Iterable<CommandRegistration> subCommands)
+		/**
+		 * resets the ctx's per-parse state, so that it may be reused by the next parsing run. Must be called once
+		 * parsing completed (regardless of whether or not it succeeded).
+		 */
+		void release()
 		{
-			this.args = args;
-			this.allOptionFields = newHashSet();
-			for (Field f : optionFields)
-				this.allOptionFields.add(new FieldRegistration(f));
-			this.helpOptionFields = newHashSet();
-			for(Field f : helpOptionFields)
-				this.helpOptionFields.add(new HelpOptionFieldRegistration(f));
-			this.subCommands = subCommands;
+			for (FieldRegistration fr : bufferedFields) // only left in case of a failed parsing run
+				fr.releaseBuffer();
+			bufferedFields.clear();
+			for (FieldRegistration fr : allOptionFields)
+			{
+				fr.occurs = 0;
+				if (!fr.sharedConverter) // stateful converters must not be reused by subsequent parsing runs
+					fr.converter = null;
+			}
+			present.clear();
+			args = null;
+			start = pos = 0;
+			attachedValue = null;
+			currentFieldCount = 0;
+			currentArg = null;
+			if (timeConversions && conversionNanos != null)
+			{
+				Arrays.fill(conversionNanos, 0);
+				Arrays.fill(conversionCounts, 0);
+			}
+			timeConversions = false;
+			state = ParsingState.OPTIONS;
+			invocation = null;
+			inUse = false;
 		}
 
 		/**
@@ -315,7 +445,7 @@ class CliParserImpl extends CliParser
 		{
 			if (state == ParsingState.OPERANDS) return false;
 			
-			if (pos >= args.length)
+			if (!hasRemainingArgs())
 				return false;
 			// we have at least one more arg
 
@@ -326,10 +456,7 @@ class CliParserImpl extends CliParser
 				return (state= ParsingState.OPERANDS)==null&consume()!=null;
 			
 			// --> ensure the next arg is not a subcommand (in which case we do not want to continue)
-			boolean isSubCommand = from(subCommands)
-					.anyMatch(compose(equalTo(currentRawArg), CommandRegistration.getCommandName));
-			
-			if(isSubCommand) return false;
+			if(model.commandsByName.containsKey(currentRawArg)) return false;
 			
 			if(currentRawArg.startsWith(DASH)) return true;
 			
@@ -337,262 +464,504 @@ class CliParserImpl extends CliParser
 			return state == (state = ParsingState.OPERANDS);			
 		}
 
+		/**
+		 * scans the remaining args of the current command level for help options, without converting or binding any
+		 * values. Help is requested if a help option (of this or a parent command level) is present and the args
+		 * end with the options of this level, in which case help is printed even if option values are invalid (for
+		 * any other args - e.g. unknown options, missing values, sub-commands or operands - parsing decides). Args
+		 * that are read lazily (see {@link Args#isMaterialised()}) are not scanned. If help is requested, all args are
+		 * consumed.
+		 * 
+		 * @return <code>true</code> if help is requested by the args of this level
+		 */
+		boolean helpRequested()
+		{
+			if (helpOptionFields.isEmpty() && !invocation.helpOption || !args.isMaterialised()
+					|| attachedValue != null)
+				return false;
+			if (!invocation.helpOption && !containsHelpOption())
+				return false;
+
+			int scanStart = pos;
+			boolean inheritedHelp = invocation.helpOption;
+			boolean optionsOnly = true;
+			while (optionsOnly && hasRemainingArgs())
+			{
+				String rawArg = consume();
+				optionsOnly = rawArg.startsWith(DASH) && !rawArg.equals(OPTION_OPERAND_DELIMITER)
+						&& !model.commandsByName.containsKey(rawArg) && skipOptionValues(rawArg);
+			}
+			if (optionsOnly && invocation.helpOption)
+				return true;
+
+			pos = scanStart;
+			attachedValue = null;
+			currentFieldCount = 0;
+			invocation.helpOption = inheritedHelp;
+			return false;
+		}
+
+		/**
+		 * scans the options of this command level for a help option, without modifying any state. The scan skips
+		 * option values as parsing would and stops at the option-operand delimiter and at the first operand or
+		 * sub-command.
+		 * 
+		 * @return <code>true</code> if any of the options of this command level is a help option
+		 */
+		private boolean containsHelpOption()
+		{
+			int values = 0; // the amount of values following the current option (-1: up to the next option)
+			for (int i = pos; args.has(i); i++)
+			{
+				String rawArg = args.get(i);
+				boolean option = rawArg.startsWith(DASH);
+				if (values > 0 || values < 0 && !option)
+				{
+					if (values > 0) values--;
+					continue;
+				}
+				if (!option || rawArg.equals(OPTION_OPERAND_DELIMITER))
+					return false;
+
+				int prefixLength = optionPrefixLength(rawArg);
+				int optionEnd = rawArg.indexOf('=');
+				boolean attached = optionEnd > 0;
+				if (!attached)
+					optionEnd = rawArg.length();
+				if (isHelpOption(rawArg, prefixLength, optionEnd))
+					return true;
+
+				values = formalArgCount(rawArg, prefixLength, optionEnd);
+				if (attached && values > 0)
+					values--; // the attached value is the first one
+			}
+			return false;
+		}
+
+		/**
+		 * @return the amount of values of the option(s) denoted by the given option arg (-1 for values up to the next
+		 *         option, 0 for unknown options)
+		 */
+		private int formalArgCount(String rawArg, int prefixLength, int optionEnd)
+		{
+			if (prefixLength != DASH.length())
+			{
+				OptionDescriptor option = model.longOptionIndex.get(rawArg, prefixLength, optionEnd);
+				return option == null ? 0 : option.formalArgCount();
+			}
+			int count = 0;
+			for (int i = prefixLength; i < optionEnd; i++)
+			{
+				OptionDescriptor option = model.shortOption(rawArg.charAt(i));
+				if (option == null)
+					continue;
+				if (option.formalArgCount() < 0)
+					return -1;
+				count += option.formalArgCount();
+			}
+			return count;
+		}
+
+		/**
+		 * skips the values of the given (consumed) option arg as parsing would consume them (see
+		 * {@link #helpRequested()}).
+		 * 
+		 * @return <code>false</code> if parsing would not continue with the next option afterwards
+		 */
+		private boolean skipOptionValues(String rawArg)
+		{
+			int prefixLength = optionPrefixLength(rawArg);
+			int optionEnd = rawArg.indexOf('=');
+			if (optionEnd > 0)
+				attachedValue = rawArg.substring(optionEnd + 1);
+			else
+				optionEnd = rawArg.length();
+
+			if (isHelpOption(rawArg, prefixLength, optionEnd))
+			{
+				invocation.helpOption = true;
+				return attachedValue == null;
+			}
+			if (!determineFields(rawArg, prefixLength, optionEnd))
+				return false;
+
+			for (int f = 0; f < currentFieldCount; f++)
+				for (int i = currentFields[f].argCount(); i > 0; i--)
+				{
+					if (!hasRemainingArgs())
+						return false;
+					consume();
+				}
+			currentFieldCount = 0;
+			return attachedValue == null;
+		}
+
 		public boolean helpOption()
 		{
-			return helpOption;
+			return invocation.helpOption;
 		}
 
 		public void pushCommand(String commandStr)
 		{
-			commands.push(commandStr);
+			invocation.commands.push(commandStr);
 		}
 
 		public Deque<String> getCmdStack()
 		{
-			return commands;
+			return invocation.commands;
+		}
+
+		/**
+		 * @return the args that were not parsed (yet), never <code>null</code>
+		 */
+		Operands operands()
+		{
+			return new Operands(args, pos, attachedValue);
 		}
 
-		public String[] remainingArgs()
+		private boolean hasRemainingArgs()
 		{
-			return copyOfRange(args, pos, args.length);
+			return attachedValue != null || args.has(pos);
 		}
 
 		private String consume()
 		{
-			return args[pos++];
+			if (attachedValue == null)
+				return args.get(pos++);
+
+			String value = attachedValue;
+			attachedValue = null;
+			return value;
 		}
 		
 		private String peek()
 		{
-			return args[pos];
+			return attachedValue != null ? attachedValue : args.get(pos);
 		}
 
-		Optional<FieldRegistration> fieldRegistration(String name)
+		/**
+		 * counts the args from the current position up to (excluding) the next option or the end of the args.
+		 */
+		private int countArgsUntilNextOption()
 		{
-			return from(allOptionFields).firstMatch(Predicates.compose(equalTo(name), Utils.selectFieldName()));
+			int count = 0;
+			if (attachedValue != null)
+			{
+				if (attachedValue.startsWith(DASH)) return 0;
+				count++;
+			}
+			for (int i = pos; args.has(i) && !args.get(i).startsWith(DASH); i++)
+				count++;
+			return count;
 		}
 
 		/**
-		 * peeks the next argument (which must be an option). If the next arg contains a value separator ('='), then
-		 * the value is split: the current arg is reset to the arg part before the separator, the remainder (without
-		 * the separator) is inserted into the arguments array.
+		 * assigns all buffered option values to their fields. Must be called once after all options were parsed.
 		 */
-		private void splitArgOnPresentArg()
+		public <T> void completeBindings(T options) throws Exception
 		{
-			String currentArg = peek();
-			if(!currentArg.contains("=") || currentArg.startsWith("=")) return;
-			
-			String[] argParts = currentArg.split("=",2);
-			args[pos] = argParts[0];
-			args = insertAfter(args, pos, argParts[1]);
+			for (FieldRegistration fr : bufferedFields)
+			{
+				fr.descriptor.binder.complete(options, fr.buffer);
+				fr.releaseBuffer();
+			}
+			bufferedFields.clear();
 		}
 
-		private Iterable<FieldRegistration> determineFields(Arg arg)
+		/**
+		 * @return the registrations of all options that are absent, but required (according to their required
+		 *         expressions), never <code>null</code>
+		 */
+		List<FieldRegistration> missingRequiredOptions()
 		{
-			checkNotNull(arg);
-			
-			boolean longArg = arg.longOption;
-			boolean shortArg = arg.shortOption;
+			List<FieldRegistration> missing = new ArrayList<FieldRegistration>();
+			for (OptionDescriptor option : model.requirableOptions)
+				if (!present.get(option.ordinal) && option.required.evaluate(present))
+					missing.add(allOptionFields.get(option.ordinal));
+			return missing;
+		}
 
-			if (!(longArg | shortArg))
+		private FieldRegistration registrationOf(OptionDescriptor optionOrNull)
+		{
+			return optionOrNull == null ? null : allOptionFields.get(optionOrNull.ordinal);
+		}
+
+		/**
+		 * @return the length of the given arg's option prefix: 2 for long options (--), 1 for short options (-) and 0
+		 *         for anything else
+		 */
+		private static int optionPrefixLength(String arg)
+		{
+			if (arg.startsWith(DDASH)) return DDASH.length();
+			return arg.startsWith(DASH) ? DASH.length() : 0;
+		}
+
+		/**
+		 * determines the fields denoted by the given option argument and stores them as the current fields. The
+		 * option name is the region of the raw arg between its prefix and the end of the option (the value separator
+		 * or the end of the raw arg) - no substring is created for it.
+		 * 
+		 * @return <code>false</code> if the option could not be determined
+		 */
+		private boolean determineFields(String rawArg, int prefixLength, int optionEnd)
+		{
+			if (prefixLength == 0)
 				throw new RuntimeException(
 						format("not a valid token: '%s'"
 								+ " - expected a long or short option (prefixed with -/--).",
-								arg.rawArg));
-			String argName = arg.argName;
-			if(argName.contains("="))
+								rawArg.substring(0, optionEnd)));
+
+			currentFieldCount = 0;
+			if (prefixLength == DASH.length())
 			{
-				String[] args = argName.split("=",2);
-				argName = args[0];
-				
+				_determineShortOptionFields(rawArg, prefixLength, optionEnd);
+				return true;
 			}
 
-			if (shortArg)
-				return _determineShortOptionField(argName);
-
 			// we are handling a long option
-
-			for (FieldRegistration fr : allOptionFields)
-			{
-				String optionStr = Utils.longOption(fr);
-				if (argName.equals(optionStr))
-					return singleton(fr);
-			}
-			return null;
+			FieldRegistration fr = registrationOf(model.longOptionIndex.get(rawArg, prefixLength, optionEnd));
+			if (fr == null) return false;
+			addCurrentField(fr);
+			return true;
 		}
 
 		/**
+		 * adds the fields matching the given short options to the current fields. Characters that do not denote a
+		 * short option are ignored.
 		 * 
-		 * @param argWithoutPrefix
-		 *            argument without leading option character ('-'..)
-		 * @return the matching field registrations or <code>null</code> if option could not be determined
+		 * @param rawArg
+		 *            the raw arg, the short option characters are <code>rawArg[start, end)</code>
 		 */
-		private Iterable<FieldRegistration> _determineShortOptionField(
-				String argWithoutPrefix)
+		private void _determineShortOptionFields(String rawArg, int start, int end)
 		{
-			List<FieldRegistration> matchedRegistrations = newArrayList(); 
-			// multiple short options may be specified - iterable over all chars:
-			for (char shortOptionChar : argWithoutPrefix.toCharArray())
+			// multiple short options may be specified - iterate over all chars:
+			for (int i = start; i < end; i++)
 			{
-				for (FieldRegistration fr : allOptionFields)
-				{
-					Character optionChar = Utils.shortOption(fr);
-					if (optionChar == null
-							|| shortOptionChar != optionChar.charValue())
-						continue;
-					matchedRegistrations.add(fr);
-				}
+				OptionDescriptor option = model.shortOption(rawArg.charAt(i));
+				if (option != null)
+					addCurrentField(allOptionFields.get(option.ordinal));
 			}
-			return matchedRegistrations;
 		}
 
-		public Iterable<FieldRegistration> determineAndConsumeNextFields()
+		private void addCurrentField(FieldRegistration fr)
+		{
+			if (currentFieldCount == currentFields.length)
+				currentFields = copyOf(currentFields, currentFieldCount * 2);
+			currentFields[currentFieldCount++] = fr;
+		}
+
+		/**
+		 * consumes the next argument (which must be an option) and determines the fields it denotes. If the arg
+		 * contains a value separator ('='), the remainder (without the separator) becomes the next argument to be
+		 * consumed. Neither the args are modified, nor are they copied.
+		 */
+		public void determineAndConsumeNextFields()
+		{
+			if (classifyNextOption())
+				resolveCurrentFields();
+		}
+
+		/**
+		 * consumes the next argument (which must be an option) and classifies it (see
+		 * {@link #determineAndConsumeNextFields()}).
+		 * 
+		 * @return <code>false</code> if the arg is a help option (there are no fields to resolve, then)
+		 */
+		boolean classifyNextOption()
 		{
-			splitArgOnPresentArg();
 			String rawArg = consume();
-			Arg arg = new Arg(rawArg);
-			if(isHelpOption(arg))
+			int prefixLength = optionPrefixLength(rawArg);
+			int optionEnd = rawArg.indexOf('=');
+			if (optionEnd > 0)
+				attachedValue = rawArg.substring(optionEnd + 1);
+			else
+				optionEnd = rawArg.length();
+
+			currentFieldCount = 0;
+			if(isHelpOption(rawArg, prefixLength, optionEnd))
 			{
 				this.state = ParsingState.HELP;
-				this.helpOption = true;
+				invocation.helpOption = true;
 				//help options do not have arguments by definition. --> return early.
-				return (currentFields = emptySet()); 
+				return false;
 			}
-			Iterable<FieldRegistration> fields = determineFields(arg);
+			currentArg = rawArg;
+			currentPrefixLength = prefixLength;
+			currentOptionEnd = optionEnd;
+			return true;
+		}
+
+		/**
+		 * determines the fields denoted by the option arg classified last and validates their occurrences.
+		 */
+		void resolveCurrentFields()
+		{
+			String rawArg = currentArg;
+			int prefixLength = currentPrefixLength;
+			int optionEnd = currentOptionEnd;
 
 			// TODO: state which tokens were expected
-			if (fields == null)
+			if (!determineFields(rawArg, prefixLength, optionEnd))
 				throw new RuntimeException(format("unexpected token: %s.",
-						rawArg));
+						rawArg.substring(0, optionEnd)));
 
 			int optsWithArg = 0;
-			for (FieldRegistration fr : fields)
-				if ((optsWithArg += fr.annotation.argCount() > 0 ? 1 : 0) > 1)
+			for (int i = 0; i < currentFieldCount; i++)
+				if ((optsWithArg += currentFields[i].descriptor.annotation.argCount() > 0 ? 1 : 0) > 1)
 					throw new RuntimeException(
 							"only a maximum of one option with arguments is allowed "
 									+ "when grouping multiple short options: "
-									+ rawArg);
+									+ rawArg.substring(0, optionEnd));
 
-			for (FieldRegistration field : fields)
-				if (!field.hasAllowedOccursLeft())
+			for (int i = 0; i < currentFieldCount; i++)
+				if (!currentFields[i].hasAllowedOccursLeft())
 					throw new RuntimeException(format(
 							"no more occurrences allowed for token '%s'. "
-									+ "Allowed occurences: %s", rawArg,
-							field.describeAllowedOccurences()));
-
-			return (currentFields = fields);
+									+ "Allowed occurences: %s", rawArg.substring(0, optionEnd),
+							currentFields[i].describeAllowedOccurences()));
 		}
 
 		public <T> void setOrAppendToField(T options) throws Exception
 		{
-			for (FieldRegistration fieldRegistration : currentFields)
+			for (int f = 0; f < currentFieldCount; f++)
 			{
-				Field field = fieldRegistration.field;
+				FieldRegistration fieldRegistration = currentFields[f];
+				FieldBinder binder = fieldRegistration.descriptor.binder;
 				fieldRegistration.occurs++;
+				present.set(fieldRegistration.descriptor.ordinal);
 
-				if (fieldRegistration.argCount() == 0)
+				int argCount = fieldRegistration.argCount();
+				if (argCount == 0)
 				{ // option w/o args
-					field.set(options, true);
+					binder.flag(options);
 					continue;
 				}
-
-				int argCount = fieldRegistration.argCount();
 				
+				List<Object> buffer = fieldRegistration.buffer();
 				for (int i = 0; i < argCount; i++)
 				{
 					String valueStr = consume();
-					Object value = fieldRegistration.converter.apply(valueStr);
-
-					Class<?> fieldType = field.getType();
-					if (fieldType.isArray())
-					{
-						Object[] originalValues = (Object[]) field.get(options);
-						if (originalValues == null)
-						{
-							Object newArray = newInstance(fieldType.getComponentType(), 1);
-							Array.set(newArray, 0, value);
-							
-							field.set(options, newArray);
-						}
-						else
-						{
-							Object[] newValues = copyOf(originalValues,
-									originalValues.length + 1);
-							newValues[newValues.length - 1] = value;
-							field.set(options, newValues);
-						}
-						continue;
-					}
-					if (isCollectionType(field))
-					{
-						@SuppressWarnings("unchecked")
-						Collection<Object> collection = (Collection<Object>)field.get(options);
-						if (collection == null) continue;	//TODO: enable initialisation
-						
-						collection.add(value);
-						continue;
-					}
-					field.set(options, value);
+					Object value;
+					if (!timeConversions)
+						value = fieldRegistration.converter().apply(valueStr);
+					else
+						value = convertTimed(fieldRegistration, valueStr);
+					binder.bind(options, buffer, value);
 				}
 			}
 		}
 		
-		private boolean isHelpOption(Arg arg)
+		private Object convertTimed(FieldRegistration fieldRegistration, String valueStr)
 		{
-			checkNotNull(arg);
-			
-			if(helpOptionFields.size() == 0) return false;
-			
-			if(arg.longOption || !arg.shortOption)
-				return from(helpOptionFields).transform(Utils.toLongOption())
-						.anyMatch(equalTo(arg.argName));
-			if(arg.shortOption)
-				return from(helpOptionFields).transform(Utils.toShortOption())
-						.anyMatch(CharMatcher.anyOf(arg.argName));
-			
-			throw new IllegalStateException("can not happen.");
+			if (conversionNanos == null)
+			{
+				conversionNanos = new long[allOptionFields.size()];
+				conversionCounts = new int[allOptionFields.size()];
+			}
+			long started = System.nanoTime();
+			Object value = fieldRegistration.converter().apply(valueStr);
+			int ordinal = fieldRegistration.descriptor.ordinal;
+			conversionNanos[ordinal] += System.nanoTime() - started;
+			conversionCounts[ordinal]++;
+			return value;
 		}
-		
-		private boolean isCollectionOrArray(Field f)
+
+		/**
+		 * reports the timed value conversions of the current command level (see {@link #convertTimed}).
+		 */
+		void reportConversions(ParseListener listener)
 		{
-			return isCollectionType(f) || f.getType().isArray();
-		}
-		
-		private boolean isCollectionType(Field f)
-		{			
-			return Collection.class.isAssignableFrom(f.getType());
+			if (conversionCounts == null)
+				return;
+			for (FieldRegistration fr : allOptionFields)
+				if (conversionCounts[fr.descriptor.ordinal] > 0)
+					listener.valuesConverted(model.type, fr.descriptor.longOption,
+							fr.descriptor.annotation.converter(), conversionCounts[fr.descriptor.ordinal],
+							conversionNanos[fr.descriptor.ordinal]);
 		}
 
+		private boolean isHelpOption(String rawArg, int prefixLength, int optionEnd)
+		{
+			if(helpOptionFields.size() == 0) return false;
+			
+			if(prefixLength != DASH.length())
+				return model.helpLongOptionIndex.get(rawArg, prefixLength, optionEnd) != null;
+
+			for (int i = prefixLength; i < optionEnd; i++)
+				if (model.isShortHelpOption(rawArg.charAt(i)))
+					return true;
+			return false;
+		}
+		
 		private enum ParsingState
 		{
 			OPTIONS, OPERANDS, HELP
 		}
 		
+		/**
+		 * the per-parse state of an option (the immutable option definition is shared via its descriptor).
+		 */
 		class FieldRegistration
 		{
-			public final Field	field;
-			public final int	maxOccurs;
+			public final OptionDescriptor	descriptor;
 			public int			occurs;
-			public final Option	annotation;
-			public final Function<String,?> converter;
+			private Function<String,?> converter;
+			/** whether or not the converter is shared (i.e. stateless) and is thus kept for subsequent parsing runs */
+			private boolean sharedConverter;
+			private List<Object> buffer;
+			/** whether or not the buffer holds values of the current parsing run */
+			private boolean buffered;
+
+			public FieldRegistration(OptionDescriptor descriptor)
+			{
+				this.descriptor = requireNonNull(descriptor);
+			}
+
+			/**
+			 * @return the option's per-parse value buffer (created upon first use) or <code>null</code> if the
+			 *         option's values are not buffered
+			 */
+			public List<Object> buffer()
+			{
+				if (!buffered && descriptor.binder.isBuffered())
+				{
+					if (buffer == null)
+						buffer = new ArrayList<Object>();
+					bufferedFields.add(this);
+					buffered = true;
+				}
+				return buffer;
+			}
 
-			public FieldRegistration(Field field)
+			/**
+			 * empties the buffer (keeping it for subsequent parsing runs).
+			 */
+			void releaseBuffer()
 			{
-				this.field = checkNotNull(field);
-				this.annotation = checkNotNull(field.getAnnotation(Option.class));
-				this.maxOccurs = annotation.maxOccurs();
-				try
+				buffer.clear();
+				buffered = false;
+			}
+
+			/**
+			 * @return the option's converter - created upon first use (or shared, if the converter is stateless)
+			 */
+			public Function<String,?> converter()
+			{
+				if (converter == null)
 				{
-					this.converter = annotation.converter().newInstance();
-				}catch(Throwable t){throw new RuntimeException(t); }
+					converter = ConverterCache.converter(descriptor.annotation.converter());
+					sharedConverter = ConverterCache.isShareable(descriptor.annotation.converter());
+				}
+				return converter;
 			}
 
 			public boolean hasAllowedOccursLeft()
 			{
+				int maxOccurs = descriptor.annotation.maxOccurs();
 				switch (maxOccurs)
 				{
 				case Option.MAX_OCCURS_DEFAULT_BEHAVIOUR:
-					if (isCollectionOrArray(field))
+					if (descriptor.isCollectionOrArray())
 						return true;
 					return occurs < 1;
 				default:
@@ -627,15 +996,14 @@ class CliParserImpl extends CliParser
 			 */
 			public int argCount()
 			{
+				Option annotation = descriptor.annotation;
 				if (annotation.argCount() != Option.MAX_OCCURS_DEFAULT_BEHAVIOUR) return annotation.argCount();
 				//default behaviour depends on annotated field's type
 				
-				if(isCollectionOrArray(field))	//read until next option
-					return from(asList(remainingArgs()))
-					.filter(Utils.allUntilNextOption())
-					.size();
+				if(descriptor.isCollectionOrArray())	//read until next option
+					return countArgsUntilNextOption();
 				
-				if(field.getType() == Boolean.TYPE) return 0;	//flags do not have options
+				if(descriptor.flag) return 0;	//flags do not have options
 				
 				return 1;	//one arg by default for non-array, non-collection, non-boolean fields
 			}
@@ -649,19 +1017,16 @@ class CliParserImpl extends CliParser
 			 */
 			public int formalArgCount()
 			{
-				if (annotation.argCount() != Option.MAX_OCCURS_DEFAULT_BEHAVIOUR
-						|| !isCollectionOrArray(field))
-					return argCount();
-				
-				return annotation.argCount();
+				return descriptor.formalArgCount();
 			}
 			
 			public String describeAllowedOccurences()
 			{
+				int maxOccurs = descriptor.annotation.maxOccurs();
 				switch (maxOccurs)
 				{
 				case Option.MAX_OCCURS_DEFAULT_BEHAVIOUR:
-					if (field.getType().isArray())
+					if (descriptor.field.getType().isArray())
 						return "unlimited";
 					return "1";
 				default:
@@ -670,39 +1035,6 @@ class CliParserImpl extends CliParser
 			}
 		}
 
-		private class HelpOptionFieldRegistration
-		{
-			private final Field field;
-			private final HelpOption annotation;
-			
-			public HelpOptionFieldRegistration(Field field)
-			{
-				this.field = checkNotNull(field);
-				this.annotation = checkNotNull(field.getAnnotation(HelpOption.class));
-			}
-			
-		}
-		
-		private class Arg
-		{
-			private final String rawArg;
-			private final boolean shortOption;
-			private final boolean longOption;
-			private final String argName;
-			
-			public Arg(String rawArg)
-			{
-				this.rawArg = checkNotNull(rawArg);
-				
-				this.longOption = rawArg.startsWith(DDASH);
-				this.shortOption = !longOption && rawArg.startsWith(DASH);
-				
-				this.argName = rawArg.replaceFirst(format("^(%s|%s)",DDASH, DASH), ""); // rm leading -/--
-			}
-			
-			
-		}
-		
 		private static class Utils
 		{
 			/**
@@ -711,170 +1043,61 @@ class CliParserImpl extends CliParser
 			 * @return the character denoting the short option or <code>null</code> if such a character cannot be
 			 *         determined
 			 */
-			static final Character shortOption(FieldRegistration fr)
+			static final Character shortOption(OptionDescriptor option)
 			{
-				if (fr == null)
+				if (option == null)
 					throw new NullPointerException();
 
-				if (fr.annotation.shortOption() != Option.NOT_SET)
-					return fr.annotation.shortOption();
-
-				// fallback to field name:
-				String fieldName = fr.field.getName();
-
-				if (fieldName.length() == 1)
-					return fieldName.toCharArray()[0];
-
-				return null;
+				return option.hasShortOption() ? option.shortOption : null;
 			}
 
-			static final Character shortOption(HelpOptionFieldRegistration fr)
+			static final Character shortOption(HelpOptionDescriptor fr)
 			{
 				if (fr == null)
 					throw new NullPointerException();
 				
-				if (fr.annotation.shortOption() != Option.NOT_SET)
-					return fr.annotation.shortOption();
-				
-				// fallback to field name:
-				String fieldName = fr.field.getName();
-				
-				if (fieldName.length() == 1)
-					return fieldName.toCharArray()[0];
-				
-				return null;
+				return fr.shortOption != Option.NOT_SET ? fr.shortOption : null;
 			}
 
-			static final String longOption(FieldRegistration fr)
+			static final String longOption(OptionDescriptor option)
 			{
-				if (fr == null)
+				if (option == null)
 					throw new NullPointerException();
 				
-				if (!isNullOrEmpty(fr.annotation.longOption()))
-					return fr.annotation.longOption();
-
-				// fallback to field name:
-				return fr.field.getName();
+				return option.longOption;
 			}
 
-			static final String longOption(HelpOptionFieldRegistration fr)
+			static final String longOption(HelpOptionDescriptor fr)
 			{
 				if (fr == null)
 					throw new NullPointerException();
 				
-				if (!isNullOrEmpty(fr.annotation.longOption()))
-					return fr.annotation.longOption();
-				
-				// fallback to field name:
-				return fr.field.getName();
-			}
-
-			static final Function<HelpOptionFieldRegistration,String> toLongOption()
-			{
-				return new Function<HelpOptionFieldRegistration,String>()
-				{
-					public String apply(HelpOptionFieldRegistration input)
-					{
-						return longOption(input);
-					}
-				};
-			}
-
-			static final Function<HelpOptionFieldRegistration,Character> toShortOption()
-			{
-				return new Function<HelpOptionFieldRegistration,Character>()
-						{
-					public Character apply(HelpOptionFieldRegistration input)
-					{
-						return shortOption(input);
-					}
-						};
+				return fr.longOption;
 			}
 
-			static final Function<FieldRegistration,String> selectFieldName()
-			{
-				return new Function<FieldRegistration,String>()
-					{
-						@Override
-						public String apply(FieldRegistration input)
-						{
-							return input.field.getName();
-						}
-					};
-			}
-
-			static final Function<FieldRegistration, String> selectArgDescription()
-			{
-				return new Function<FieldRegistration, String>()
-				{
-					@Override
-					public String apply(FieldRegistration input)
-					{
-						Character shortOption = ParsingCtx.Utils
-								.shortOption(input);
-						String longOption = ParsingCtx.Utils.longOption(input);
-
-						String shortText = shortOption != null ? DASH
-								+ shortOption : null;
-						String longText = longOption != null ? DDASH
-								+ longOption : null;
-						String beginning = on('|').skipNulls().join(shortText,
-								longText);
-
-						return beginning;
-					}
-				};
-			}
-
-			static final Predicate<FieldRegistration> absent()
+			/**
+			 * @return the option's names as specified on the command line (e.g. <code>-o|--option</code>)
+			 */
+			static final String argDescription(OptionDescriptor option)
 			{
-				return new Predicate<CliParserImpl.ParsingCtx.FieldRegistration>()
-				{
-					@Override
-					public boolean apply(FieldRegistration input)
-					{
-						return input.occurs==0;
-					}
-				};
+				Character shortOption = shortOption(option);
+				String longOption = longOption(option);
+
+				StringBuilder s = new StringBuilder();
+				if (shortOption != null)
+					s.append(DASH).append(shortOption);
+				if (longOption != null)
+					s.append(s.length() == 0 ? "" : "|").append(DDASH).append(longOption);
+				return s.toString();
 			}
 			
-			static final Predicate<String> allUntil (final Predicate<String> predicate)
-			{				
-				return new Predicate<String>()
-						{
-							private boolean encounteredOption = false; 
-							public boolean apply(String arg)
-							{
-								if (encounteredOption) return false;
-								return !(encounteredOption = predicate.apply(arg));
-							}
-						};
-			}
-			
-			static final Predicate<String> shortOption = new Predicate<String>()
-					{
-						public boolean apply(String arg)
-						{
-							return arg.startsWith(DASH);
-						}
-					};
-			static final Predicate<String> longOption = new Predicate<String>()
-					{
-						public boolean apply(String arg)
-						{
-							return arg.startsWith(OPTION_OPERAND_DELIMITER);
-						}
-					};
-					
-			static final Predicate<String> allUntilNextOption()
-			{
-				return allUntil(or(shortOption,longOption));
-			}
 		}
 	}
 	
 	/**
-	 * don't use.
+	 * renders the help text of a command line interface model. The help text only depends on the model, thus it is
+	 * rendered once per model and cached (encoded using the default charset) for subsequent requests. The format of
+	 * the help text is subject to change.
 	 * 
 	 * @author dr1fter
 	 *
@@ -882,77 +1105,61 @@ class CliParserImpl extends CliParser
 	@Beta
 	static class HelpFormatter
 	{
-		private static Function<de.dr1fter.cliparsec.CliParserImpl.ParsingCtx.FieldRegistration,
-			String> toOptionPreamble = new Function<CliParserImpl.ParsingCtx.FieldRegistration, String>()
+		private static String toOptionPreamble(OptionDescriptor option)
 		{
-			@Override
-			public String apply(CliParserImpl.ParsingCtx.FieldRegistration input)
-			{
-				Character shortOption = ParsingCtx.Utils.shortOption(input);
-				String longOption = ParsingCtx.Utils.longOption(input);
-
-				String shortText = shortOption != null? DASH + shortOption : null;
-				String longText = longOption != null? DDASH + longOption : null;
-				String beginning =  on('|').skipNulls().join(shortText,longText);
-
-				String argList = null;
-
-				if (input.formalArgCount()!=0)
-				{
-					if(input.formalArgCount() == -1)
-						argList = "<list>";
-					else
-					{
-						List<String> args = newArrayList();
-						for(int i = 0; i < input.argCount(); )
-							args.add("arg" + i++);
-						argList = on(' ').join(args);
-					}
-				}
-				return "[" + on(' ').skipNulls().join(beginning,argList) + "]";
-			}
-		};
-
-		private static Function<de.dr1fter.cliparsec.CliParserImpl.ParsingCtx.FieldRegistration,
-		String> toDescription(final int descriptionOffset)
-		{
-			return new Function<CliParserImpl.ParsingCtx.FieldRegistration, String>()
-			{
-				@Override
-				public String apply(CliParserImpl.ParsingCtx.FieldRegistration input)
-				{
-					return padEnd(toOptionPreamble.apply(input),descriptionOffset,' ')
-							+ input.annotation.description();
-				}
-			};
+			StringBuilder s = new StringBuilder("[").append(ParsingCtx.Utils.argDescription(option));
+
+			int formalArgCount = option.formalArgCount();
+			if (formalArgCount == -1)
+				s.append(" <list>");
+			else
+				for (int i = 0; i < formalArgCount; i++)
+					s.append(" arg").append(i);
+			return s.append("]").toString();
 		}
 
-		private static Function<String,Integer>selectLength = new Function<String, Integer>()
+		/**
+		 * @return the encoded help text of the given model (rendered upon the first request), never
+		 *         <code>null</code>. The returned array must not be modified.
+		 */
+		static byte[] helpBytes(CliModel model)
 		{
-			@Override
-			public Integer apply(String input)
-			{
-				return input.length();
-			}
-		};
+			byte[] help = model.helpBytes;
+			if (help == null) // rendering concurrently is harmless - the results are equal
+				model.helpBytes = help = formatHelp(model).getBytes(Charset.defaultCharset());
+			return help;
+		}
 
 		@Beta
-		public static String formatHelp(ParsingCtx ctx)
+		public static String formatHelp(CliModel model)
 		{
 			StringBuilder s = new StringBuilder();
 
 			s.append("Options:\n");
 			//handle options
-			Iterable<String> preambles = from(ctx.allOptionFields).transform(toOptionPreamble);
-			Integer maxLeng = Ordering.natural().max(from(preambles).transform(selectLength));
+			String[] preambles = new String[model.options.size()];
+			int maxLeng = 0;
+			for (int i = 0; i < preambles.length; i++)
+			{
+				preambles[i] = toOptionPreamble(model.options.get(i));
+				maxLeng = Math.max(maxLeng, preambles[i].length());
+			}
 			final int INDENTION = 4;
-			s.append(on('\n').join(from(ctx.allOptionFields).transform(toDescription(maxLeng + INDENTION))));
+			for (int i = 0; i < preambles.length; i++)
+			{
+				if (i > 0)
+					s.append('\n');
+				s.append(preambles[i]);
+				for (int pad = preambles[i].length(); pad < maxLeng + INDENTION; pad++)
+					s.append(' ');
+				s.append(model.options.get(i).annotation.description());
+			}
 
 			//handle commands
-			if (Iterables.size(ctx.subCommands) > 0)
+			if (!model.commands.isEmpty())
 				s.append("\nsub commands:\n");
-			for(CommandRegistration command : ctx.subCommands)
-				s.append(CommandRegistration.getCommandName.apply(command)).append("\n");
+			for(CommandDescriptor command : model.commands)
+				s.append(command.name).append("\n");
 			
 			return s.toString();
 		}
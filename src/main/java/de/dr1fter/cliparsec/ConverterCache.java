@@ -0,0 +1,73 @@
+package de.dr1fter.cliparsec;
+
+import java.lang.reflect.InvocationTargetException;
+
+import com.google.common.base.Function;
+
+import de.dr1fter.cliparsec.annotations.Stateless;
+
+/**
+ * creates converter instances. Converters that are declared {@link Stateless} are instantiated once per converter
+ * type and shared afterwards; all other converters are instantiated upon each request.
+ * <p>
+ * this is an internal implementation class.
+ * 
+ * @author dr1fter
+ */
+final class ConverterCache
+{
+	private static final ClassValue<Function<String, ?>>	sharedConverters	= new ClassValue<Function<String, ?>>()
+	{
+		@Override
+		protected Function<String, ?> computeValue(Class<?> type)
+		{
+			return newConverter(type);
+		}
+	};
+
+	private ConverterCache()
+	{
+	}
+
+	/**
+	 * @param converterType
+	 *            not <code>null</code>
+	 * @return <code>true</code> iff instances of the given converter type may be shared
+	 */
+	static boolean isShareable(Class<?> converterType)
+	{
+		return converterType.isAnnotationPresent(Stateless.class);
+	}
+
+	/**
+	 * returns a converter of the given type - either the shared instance (for {@link Stateless} converters) or a new
+	 * instance.
+	 * 
+	 * @param converterType
+	 *            not <code>null</code>
+	 * @return never <code>null</code>
+	 */
+	static Function<String, ?> converter(Class<? extends Function<String, ?>> converterType)
+	{
+		if (isShareable(converterType))
+			return sharedConverters.get(converterType);
+		return newConverter(converterType);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<String, ?> newConverter(Class<?> converterType)
+	{
+		try
+		{
+			return (Function<String, ?>) converterType.getDeclaredConstructor().newInstance();
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new RuntimeException("failed to create converter: " + converterType, e.getCause());
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException("failed to create converter: " + converterType, e);
+		}
+	}
+}
@@ -4,6 +4,8 @@ import java.io.File;
 
 import com.google.common.base.Function;
 
+import de.dr1fter.cliparsec.annotations.Stateless;
+
 /**
  * Converters that can be attached to Option specifications that in turn perform type conversions from the original
  * string values to other types (e.g. file, directory, ..)
@@ -13,6 +15,7 @@ import com.google.common.base.Function;
  */
 public class Converters
 {
+	@Stateless
 	public static class Identity implements Function<String, String>
 	{
 		public String apply(String str)
@@ -27,6 +30,7 @@ public class Converters
 	 * @author Christian Cwienk (dr1fter)
 	 * 
 	 */
+	@Stateless
 	public static class FileOrDirectory implements Function<String, File>
 	{
 		public File apply(String str)
@@ -42,6 +46,7 @@ public class Converters
 	 * @author Christian Cwienk (dr1fter)
 	 * 
 	 */
+	@Stateless
 	public static class FileThatExists implements Function<String, File>
 	{
 		public File apply(String str)
@@ -60,6 +65,7 @@ public class Converters
 	 * @author Christian Cwienk (dr1fter)
 	 * 
 	 */
+	@Stateless
 	public static class DirectoryThatExists implements Function<String, File>
 	{
 		public File apply(String str)
@@ -77,6 +83,7 @@ public class Converters
 	 * @author Christian Cwienk (dr1fter)
 	 * 
 	 */
+	@Stateless
 	public static class IntegerValue implements Function<String, Integer>
 	{
 		public Integer apply(String str)
@@ -0,0 +1,160 @@
+package de.dr1fter.cliparsec;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+
+import de.dr1fter.cliparsec.CliModel.FieldAccess;
+import de.dr1fter.cliparsec.CliModel.OptionDescriptor;
+
+/**
+ * binds converted option values to an option field. Binders are resolved once per option when the model is built and
+ * are specialised for the kind of the option field (scalar, array or collection), so that no type inspection is
+ * required while parsing.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+abstract class FieldBinder
+{
+	protected final FieldAccess	access;
+
+	private FieldBinder(FieldAccess access)
+	{
+		this.access = access;
+	}
+
+	/**
+	 * marks the option as present (used for options w/o arguments).
+	 *
+	 * @param options
+	 *            the options object, not <code>null</code>
+	 */
+	final void flag(Object options) throws Exception
+	{
+		access.set(options, true);
+	}
+
+	/**
+	 * binds a single (converted) option value.
+	 *
+	 * @param options
+	 *            the options object, not <code>null</code>
+	 * @param buffer
+	 *            the per-parse buffer of the option, not <code>null</code> if {@link #isBuffered()}
+	 * @param value
+	 *            the converted value, must be assignment-compatible to the field (or its component type)
+	 */
+	abstract void bind(Object options, List<Object> buffer, Object value) throws Exception;
+
+	/**
+	 * @return <code>true</code> iff values are collected in a per-parse buffer and assigned to the field only once
+	 *         by {@link #complete(Object, List)}
+	 */
+	boolean isBuffered()
+	{
+		return false;
+	}
+
+	/**
+	 * assigns the buffered values to the field.
+	 *
+	 * @param options
+	 *            the options object, not <code>null</code>
+	 * @param buffer
+	 *            the per-parse buffer of the option, not <code>null</code>
+	 */
+	void complete(Object options, List<Object> buffer) throws Exception
+	{
+		// nothing to do for unbuffered binders
+	}
+
+	static FieldBinder forOption(OptionDescriptor option)
+	{
+		if (option.arrayType)
+			return new ArrayBinder(option.access, option.field.getType().getComponentType());
+		if (option.collectionType)
+			return new CollectionBinder(option.access);
+		return new ScalarBinder(option.access);
+	}
+
+	/**
+	 * replaces the field's value.
+	 */
+	private static final class ScalarBinder extends FieldBinder
+	{
+		ScalarBinder(FieldAccess access)
+		{
+			super(access);
+		}
+
+		@Override
+		void bind(Object options, List<Object> buffer, Object value) throws Exception
+		{
+			access.set(options, value);
+		}
+	}
+
+	/**
+	 * appends to the field's array value (creating it if it is <code>null</code>). Values are buffered and the array
+	 * is created once, after all values were parsed.
+	 */
+	private static final class ArrayBinder extends FieldBinder
+	{
+		private final Class<?>	componentType;
+
+		ArrayBinder(FieldAccess access, Class<?> componentType)
+		{
+			super(access);
+			this.componentType = componentType;
+		}
+
+		@Override
+		boolean isBuffered()
+		{
+			return true;
+		}
+
+		@Override
+		void bind(Object options, List<Object> buffer, Object value)
+		{
+			buffer.add(value);
+		}
+
+		@Override
+		void complete(Object options, List<Object> buffer) throws Exception
+		{
+			Object originalValues = access.get(options);
+			int originalLength = originalValues == null ? 0 : Array.getLength(originalValues);
+
+			Object newValues = Array.newInstance(componentType, originalLength + buffer.size());
+			if (originalValues != null)
+				System.arraycopy(originalValues, 0, newValues, 0, originalLength);
+			for (int i = 0; i < buffer.size(); i++)
+				Array.set(newValues, originalLength + i, buffer.get(i));
+			access.set(options, newValues);
+		}
+	}
+
+	/**
+	 * adds to the field's collection value (values are dropped if the collection is <code>null</code>).
+	 */
+	private static final class CollectionBinder extends FieldBinder
+	{
+		CollectionBinder(FieldAccess access)
+		{
+			super(access);
+		}
+
+		@Override
+		void bind(Object options, List<Object> buffer, Object value) throws Exception
+		{
+			@SuppressWarnings("unchecked")
+			Collection<Object> collection = (Collection<Object>) access.get(options);
+			if (collection == null) return; //TODO: enable initialisation
+
+			collection.add(value);
+		}
+	}
+}
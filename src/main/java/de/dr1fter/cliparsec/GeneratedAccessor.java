@@ -0,0 +1,47 @@
+package de.dr1fter.cliparsec;
+
+/**
+ * direct (reflection-free) access to the annotated fields of an options type. Implementations are generated at
+ * compile time by the CLI-Parsec annotation processor (artifact <code>de.dr1fter.cli-parsec-processor</code>) and
+ * are not meant to be written by hand.
+ * <p>
+ * A generated accessor for an options type is named after the type's binary name, followed by {@link #SUFFIX}, and
+ * resides in the same package. If such a class is present at runtime, it is picked up automatically by any
+ * {@link CliParser}. Otherwise, fields are accessed reflectively.
+ *
+ * @author dr1fter
+ */
+public interface GeneratedAccessor
+{
+	/**
+	 * the suffix that is appended to an options type's binary name to form the name of its generated accessor.
+	 */
+	String	SUFFIX	= "$$CliParsecAccessor";
+
+	/**
+	 * assigns the given value to the field with the given name.
+	 *
+	 * @param options
+	 *            the options object, not <code>null</code>
+	 * @param field
+	 *            the name of an annotated field, not <code>null</code>
+	 * @param value
+	 *            must be assignment-compatible to the field
+	 * @throws IllegalArgumentException
+	 *             if there is no such field
+	 */
+	void set(Object options, String field, Object value);
+
+	/**
+	 * returns the value of the field with the given name.
+	 *
+	 * @param options
+	 *            the options object, not <code>null</code>
+	 * @param field
+	 *            the name of an annotated field, not <code>null</code>
+	 * @return the field's value, primitives are boxed
+	 * @throws IllegalArgumentException
+	 *             if there is no such field
+	 */
+	Object get(Object options, String field);
+}
@@ -0,0 +1,26 @@
+package de.dr1fter.cliparsec;
+
+/**
+ * statistics of the process-wide cache of compiled command line interface models. Every options type is inspected
+ * exactly once; subsequent parsing runs for the same type reuse the cached model.
+ *
+ * @author dr1fter
+ * @see CliParser#modelCacheStatistics()
+ */
+public interface ModelCacheStatistics
+{
+	/**
+	 * @return the amount of model requests that were served from the cache
+	 */
+	long hits();
+
+	/**
+	 * @return the amount of models that were built (i.e. the amount of cache misses)
+	 */
+	long builds();
+
+	/**
+	 * @return the accumulated time spent building models, in nanoseconds
+	 */
+	long buildTimeNanos();
+}
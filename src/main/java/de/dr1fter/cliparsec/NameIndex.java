@@ -0,0 +1,62 @@
+package de.dr1fter.cliparsec;
+
+import java.util.Map;
+
+/**
+ * an immutable hash index from names to values that supports lookups by a region of a string (e.g. the part of
+ * <code>--name=value</code> between the dashes and the separator) without creating a substring.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class NameIndex<V>
+{
+	private final String[]	names;
+	private final Object[]	values;
+	private final int		mask;
+
+	/**
+	 * @param entries
+	 *            the entries to index, not <code>null</code>
+	 */
+	NameIndex(Map<String, V> entries)
+	{
+		int capacity = Integer.highestOneBit(Math.max(entries.size() * 2, 1) * 2 - 1);
+		this.names = new String[capacity];
+		this.values = new Object[capacity];
+		this.mask = capacity - 1;
+
+		for (Map.Entry<String, V> entry : entries.entrySet())
+		{
+			String name = entry.getKey();
+			int slot = name.hashCode() & mask;
+			while (names[slot] != null)
+				slot = (slot + 1) & mask;
+			names[slot] = name;
+			values[slot] = entry.getValue();
+		}
+	}
+
+	/**
+	 * returns the value indexed by the name that equals <code>str.substring(start, end)</code>.
+	 *
+	 * @return the value or <code>null</code> if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	V get(String str, int start, int end)
+	{
+		int length = end - start;
+		int hash = 0;
+		for (int i = start; i < end; i++) // same as String.hashCode()
+			hash = 31 * hash + str.charAt(i);
+
+		for (int slot = hash & mask; names[slot] != null; slot = (slot + 1) & mask)
+		{
+			String name = names[slot];
+			if (name.length() == length && str.regionMatches(start, name, 0, length))
+				return (V) values[slot];
+		}
+		return null;
+	}
+}
@@ -0,0 +1,220 @@
+package de.dr1fter.cliparsec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import de.dr1fter.cliparsec.CliModel.CommandDescriptor;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.annotations.SubCommands;
+
+/**
+ * generates the reflection configuration (<code>reflect-config.json</code>) required to parse into the given options
+ * types within a GraalVM native image. The configuration covers the whole options class tree, i.e. the options types
+ * and their supertypes, the types of all (nested) sub-commands (including lazily loaded ones), all converters and the
+ * generated accessors (if any).
+ * <p>
+ * The configuration is meant to be generated as part of the build, e.g. by running
+ *
+ * <pre>
+ * java -cp ... de.dr1fter.cliparsec.NativeImageConfig &lt;output directory&gt; &lt;options type&gt;...
+ * </pre>
+ *
+ * with an output directory below <code>META-INF/native-image/</code> of the application's class output, where it is
+ * picked up by <code>native-image</code> automatically.
+ *
+ * @author dr1fter
+ */
+public final class NativeImageConfig
+{
+	/** the name of the generated configuration file */
+	public static final String				FILE_NAME		= "reflect-config.json";
+
+	/** the types to register, by name */
+	private final Map<String, TypeEntry>	types			= new TreeMap<String, TypeEntry>();
+	/** the options types visited so far (sub-commands may refer to their ancestors) */
+	private final Set<Class<?>>				optionsTypes	= new HashSet<Class<?>>();
+
+	private NativeImageConfig()
+	{
+	}
+
+	/**
+	 * @param optionsTypes
+	 *            the (top-level) options types, not <code>null</code>
+	 * @return the reflection configuration for the given options types (in JSON format), never <code>null</code>
+	 */
+	public static String reflectConfig(Class<?>... optionsTypes)
+	{
+		NativeImageConfig config = new NativeImageConfig();
+		for (Class<?> optionsType : requireNonNull(optionsTypes))
+			config.addOptionsType(requireNonNull(optionsType));
+		return config.toJson();
+	}
+
+	/**
+	 * writes the reflection configuration for the given options types to {@link #FILE_NAME} within the given
+	 * directory (which is created if it does not exist).
+	 *
+	 * @return the written file, never <code>null</code>
+	 */
+	public static File writeReflectConfig(File directory, Class<?>... optionsTypes) throws IOException
+	{
+		String config = reflectConfig(optionsTypes);
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("failed to create directory: " + directory);
+
+		File file = new File(directory, FILE_NAME);
+		Writer w = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+		try
+		{
+			w.write(config);
+		}
+		finally
+		{
+			w.close();
+		}
+		return file;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 2)
+		{
+			System.err.println("usage: NativeImageConfig <output directory> <options type>...");
+			System.exit(2);
+		}
+
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		List<Class<?>> optionsTypes = new ArrayList<Class<?>>();
+		for (int i = 1; i < args.length; i++)
+			optionsTypes.add(Class.forName(args[i], false, loader));
+		File file = writeReflectConfig(new File(args[0]), optionsTypes.toArray(new Class<?>[optionsTypes.size()]));
+		System.out.println("wrote " + file);
+	}
+
+	private void addOptionsType(Class<?> optionsType)
+	{
+		if (!optionsTypes.add(optionsType))
+			return;
+
+		// sub-command objects are created reflectively, fields are looked up as declared fields
+		typeEntry(optionsType).constructors = true;
+		addGeneratedAccessor(optionsType);
+		for (Class<?> c = optionsType; c != null && c != Object.class; c = c.getSuperclass())
+		{
+			TypeEntry entry = typeEntry(c);
+			entry.fields = true;
+			for (Field field : c.getDeclaredFields())
+			{
+				Option option = field.getAnnotation(Option.class);
+				if (option == null && field.getAnnotation(Command.class) == null
+						&& field.getAnnotation(SubCommands.class) == null
+						&& field.getAnnotation(HelpOption.class) == null)
+					continue;
+
+				if (Modifier.isFinal(field.getModifiers()))
+					entry.writableFinalFields.add(field.getName()); // final fields are written reflectively
+				if (option != null)
+					typeEntry(option.converter()).constructors = true;
+			}
+		}
+		// includes the sub-commands whose types are given by name (which are loaded by name, too)
+		for (CommandDescriptor command : CliModel.of(optionsType).commands)
+			addOptionsType(command.type());
+	}
+
+	private void addGeneratedAccessor(Class<?> optionsType)
+	{
+		try
+		{
+			Class<?> accessor = Class.forName(optionsType.getName() + GeneratedAccessor.SUFFIX, false,
+					optionsType.getClassLoader());
+			typeEntry(accessor).constructors = true;
+		}
+		catch (ClassNotFoundException e)
+		{
+			// not generated - fields are accessed reflectively
+		}
+	}
+
+	private TypeEntry typeEntry(Class<?> type)
+	{
+		TypeEntry entry = types.get(type.getName());
+		if (entry == null)
+			types.put(type.getName(), entry = new TypeEntry());
+		return entry;
+	}
+
+	private String toJson()
+	{
+		StringBuilder s = new StringBuilder("[");
+		String separator = "\n";
+		for (Map.Entry<String, TypeEntry> type : types.entrySet())
+		{
+			TypeEntry entry = type.getValue();
+			s.append(separator).append("  {\n    \"name\": ").append(quote(type.getKey()));
+			if (entry.fields)
+				s.append(",\n    \"allDeclaredFields\": true");
+			if (entry.constructors)
+				s.append(",\n    \"allDeclaredConstructors\": true");
+			if (!entry.writableFinalFields.isEmpty())
+			{
+				s.append(",\n    \"fields\": [");
+				String fieldSeparator = "\n";
+				for (String field : entry.writableFinalFields)
+				{
+					s.append(fieldSeparator).append("      { \"name\": ").append(quote(field))
+							.append(", \"allowWrite\": true }");
+					fieldSeparator = ",\n";
+				}
+				s.append("\n    ]");
+			}
+			s.append("\n  }");
+			separator = ",\n";
+		}
+		return s.append("\n]\n").toString();
+	}
+
+	private static String quote(String s)
+	{
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')
+				quoted.append('\\');
+			quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * the reflective access required for a single type.
+	 */
+	private static final class TypeEntry
+	{
+		/** whether or not the type's declared fields are accessed */
+		boolean				fields;
+		/** whether or not the type is instantiated reflectively */
+		boolean				constructors;
+		/** the names of final fields that are written reflectively */
+		final TreeSet<String>	writableFinalFields	= new TreeSet<String>();
+	}
+}
@@ -0,0 +1,123 @@
+package de.dr1fter.cliparsec;
+
+import static java.util.Arrays.asList;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * the operands (i.e. the args remaining after parsing) of a parsing result. Operands are not copied from the args
+ * before they are requested, so that operands of streamed args may be iterated without ever holding all of them.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class Operands
+{
+	private final Args		args;
+	private final int		start;
+	/** the value attached to the last option, preceding the remaining args (or <code>null</code>) */
+	private final String	attachedValue;
+	private String[]		array;
+
+	Operands(Args args, int start, String attachedValueOrNull)
+	{
+		this.args = args;
+		this.start = start;
+		this.attachedValue = attachedValueOrNull;
+	}
+
+	/**
+	 * @return a read-only view of the operands (backed by the args), never <code>null</code>
+	 */
+	List<String> view()
+	{
+		return new View();
+	}
+
+	/**
+	 * @return the operands, copied once upon first invocation, never <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the operands were already streamed (see {@link #iterator()})
+	 */
+	String[] toArray()
+	{
+		if (array != null)
+			return array;
+
+		String[] remainingArgs = args.from(start);
+		if (attachedValue == null)
+			return array = remainingArgs;
+
+		array = new String[remainingArgs.length + 1];
+		array[0] = attachedValue;
+		System.arraycopy(remainingArgs, 0, array, 1, remainingArgs.length);
+		return array;
+	}
+
+	/**
+	 * @return an iterator over the operands. Operands of streamed args that were not yet read are read as the
+	 *         iterator advances (and are not retained), never <code>null</code>
+	 */
+	Iterator<String> iterator()
+	{
+		if (array != null)
+			return asList(array).iterator();
+
+		final Iterator<String> remainingArgs = args.iterator(start);
+		if (attachedValue == null)
+			return remainingArgs;
+
+		return new Iterator<String>()
+		{
+			private boolean	attachedValueReturned;
+
+			@Override
+			public boolean hasNext()
+			{
+				return !attachedValueReturned || remainingArgs.hasNext();
+			}
+
+			@Override
+			public String next()
+			{
+				if (attachedValueReturned)
+					return remainingArgs.next();
+				attachedValueReturned = true;
+				return attachedValue;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private final class View extends AbstractList<String> implements RandomAccess
+	{
+		private final int	offset	= attachedValue == null ? 0 : 1;
+
+		@Override
+		public String get(int index)
+		{
+			if (index < 0)
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			if (index < offset)
+				return attachedValue;
+			if (!args.has(start + index - offset))
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			return args.get(start + index - offset);
+		}
+
+		@Override
+		public int size()
+		{
+			return offset + args.size() - start;
+		}
+	}
+}
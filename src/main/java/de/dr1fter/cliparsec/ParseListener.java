@@ -0,0 +1,81 @@
+package de.dr1fter.cliparsec;
+
+/**
+ * receives the timings of the phases of parsing runs (see {@link CliParser#withListener(ParseListener)}). All
+ * timings are given in nanoseconds (as measured by {@link System#nanoTime()}). For sub-commands, each phase is
+ * reported once per command level, passing the options type of the respective level.
+ * <p>
+ * Listeners are invoked synchronously by the parsing thread. Thus, they should return quickly and must be thread-safe
+ * if the parser is used by concurrent threads. The methods of this class do nothing - override the ones of interest.
+ *
+ * @author dr1fter
+ */
+public abstract class ParseListener
+{
+	/**
+	 * the command line interface model of the given options type was resolved. Upon the first use of an options type,
+	 * this includes building its model (which is cached afterwards).
+	 */
+	public void modelResolved(Class<?> optionsType, long nanos)
+	{
+	}
+
+	/**
+	 * the raw args of a command level were tokenised, i.e. read (expanding response files, if enabled) and classified
+	 * as option names, attached values, help options, sub-commands or operands.
+	 */
+	public void tokenised(Class<?> optionsType, long nanos)
+	{
+	}
+
+	/**
+	 * the options denoted by the option names of a command level were resolved (including the validation of their
+	 * occurrences).
+	 */
+	public void optionsResolved(Class<?> optionsType, long nanos)
+	{
+	}
+
+	/**
+	 * the values of an option were converted (reported once per option and command level, for options that have at
+	 * least one value).
+	 *
+	 * @param longOption
+	 *            the option's long name
+	 * @param converterType
+	 *            the option's converter (see {@link de.dr1fter.cliparsec.annotations.Option#converter()})
+	 * @param valueCount
+	 *            the amount of converted values
+	 * @param nanos
+	 *            the total time spent converting the values
+	 */
+	public void valuesConverted(Class<?> optionsType, String longOption, Class<?> converterType, int valueCount,
+			long nanos)
+	{
+	}
+
+	/**
+	 * the required expressions of a command level's options were evaluated.
+	 */
+	public void requiredEvaluated(Class<?> optionsType, long nanos)
+	{
+	}
+
+	/**
+	 * a sub-command was selected and its options object was prepared (the sub-command's args are reported
+	 * separately, for the sub-command's options type).
+	 *
+	 * @param optionsType
+	 *            the options type declaring the sub-command
+	 */
+	public void subCommandEntered(Class<?> optionsType, String command, long nanos)
+	{
+	}
+
+	/**
+	 * the help text was rendered and written.
+	 */
+	public void helpRendered(Class<?> optionsType, long nanos)
+	{
+	}
+}
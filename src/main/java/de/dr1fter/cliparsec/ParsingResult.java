@@ -1,13 +1,35 @@
 package de.dr1fter.cliparsec;
 
+import java.util.Iterator;
+import java.util.List;
+
 import com.google.common.base.Optional;
 
 public interface ParsingResult<T>
 {
 	<X> T options();
 
+	/**
+	 * @return a copy of the operands (created upon first invocation), never <code>null</code>
+	 */
 	String[] operands();
 
+	/**
+	 * returns a read-only view of the operands, which is backed by the parsed args (i.e. the operands are not copied).
+	 * 
+	 * @return never <code>null</code>
+	 */
+	List<String> operandList();
+
+	/**
+	 * returns the operands without copying them. If the args were passed as an iterator (see
+	 * {@link CliParser#parse(Object, Iterator)}), operands are read from it as the returned iterator advances, in which
+	 * case {@link #operands()} must not be invoked afterwards.
+	 * 
+	 * @return never <code>null</code>
+	 */
+	Iterator<String> operandIterator();
+
 	Status status();
 
 	public enum Status
@@ -17,6 +39,19 @@ public interface ParsingResult<T>
 
 	Optional<SelectedCommand> selectedCommand();
 
+	/**
+	 * @return the exception that aborted parsing - only present for results of
+	 *         {@link CliParser#parseAll(com.google.common.base.Supplier, List)}, whereas {@link CliParser#parse} throws
+	 *         such exceptions
+	 */
+	Optional<Exception> failure();
+
+	/**
+	 * @return the resources consumed by parsing - only present if resource accounting is enabled (see
+	 *         {@link CliParser#withResourceAccounting()})
+	 */
+	Optional<ResourceUsage> resourceUsage();
+
 	// TODO: use a more sophisticated data structure for returning selected commands
 	public interface SelectedCommand
 	{
@@ -1,25 +1,56 @@
 package de.dr1fter.cliparsec;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Objects.requireNonNull;
 
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
 import com.google.common.base.Optional;
 
+/**
+ * the result of a parsing run. The optional parts (selected command, failure and resource usage) are held as nullable
+ * references and wrapped into {@link Optional}s upon request.
+ * <p>
+ * this is an internal implementation class.
+ * @author dr1fter
+ */
 class ParsingResultImpl<T> implements ParsingResult<T>
 {
-	private final T							options;
-	private final String[]					operands;
-	private final Status					status;
-	private final Optional<SelectedCommand>	selectedCommand;
+	private final T					options;
+	private final Operands			operands;
+	private final Status			status;
+	private final SelectedCommand	selectedCommandOrNull;
+	private final Exception			failureOrNull;
+	/** only set if resource accounting is enabled */
+	ResourceUsage					resourceUsageOrNull;
+
+	public ParsingResultImpl(T options, Status status, Operands operands, SelectedCommand selectedCommandOrNull)
+	{
+		this(requireNonNull(options), status, operands, selectedCommandOrNull, null);
+	}
+
+	private ParsingResultImpl(T optionsOrNull, Status status, Operands operands,
+			SelectedCommand selectedCommandOrNull, Exception failureOrNull)
+	{
+		this.options = optionsOrNull;
+		this.operands = requireNonNull(operands);
+		this.status = requireNonNull(status);
+		this.selectedCommandOrNull = selectedCommandOrNull;
+		this.failureOrNull = failureOrNull;
+	}
 
-	public ParsingResultImpl(T options, Status status, String[] operands,
-			Optional<SelectedCommand> selectedCommand)
+	/**
+	 * @param optionsOrNull
+	 *            the (partially initialised) options object, <code>null</code> if it could not be created
+	 * @param failure
+	 *            the exception that aborted parsing, not <code>null</code>
+	 * @return a result with status {@link Status#ERROR} and without operands
+	 */
+	static <T> ParsingResult<T> failed(T optionsOrNull, Exception failure)
 	{
-		this.options = checkNotNull(options);
-		this.operands = checkNotNull(operands);
-		this.status = checkNotNull(status);
-		this.selectedCommand = checkNotNull(selectedCommand);
+		return new ParsingResultImpl<T>(optionsOrNull, Status.ERROR, new Operands(new Args(new String[0]), 0, null),
+				null, requireNonNull(failure));
 	}
 
 	@Override
@@ -37,23 +68,47 @@ class ParsingResultImpl<T> implements ParsingResult<T>
 	@Override
 	public String[] operands()
 	{
-		return operands;
+		return operands.toArray();
+	}
+
+	@Override
+	public List<String> operandList()
+	{
+		return operands.view();
+	}
+
+	@Override
+	public Iterator<String> operandIterator()
+	{
+		return operands.iterator();
 	}
 
 	@Override
 	public Optional<de.dr1fter.cliparsec.ParsingResult.SelectedCommand> selectedCommand()
 	{
-		return selectedCommand;
+		return Optional.fromNullable(selectedCommandOrNull);
+	}
+
+	@Override
+	public Optional<Exception> failure()
+	{
+		return Optional.fromNullable(failureOrNull);
+	}
+
+	@Override
+	public Optional<ResourceUsage> resourceUsage()
+	{
+		return Optional.fromNullable(resourceUsageOrNull);
 	}
 
 	static class SelectedCommandImpl implements SelectedCommand
 	{
 		private final String		commandName;
-		Optional<SelectedCommand>	nestedCommand	= Optional.absent();
+		SelectedCommand				nestedCommandOrNull;
 
 		SelectedCommandImpl(String commandName)
 		{
-			this.commandName = checkNotNull(commandName);
+			this.commandName = requireNonNull(commandName);
 		}
 
 		@Override
@@ -65,20 +120,23 @@ class ParsingResultImpl<T> implements ParsingResult<T>
 		@Override
 		public Optional<de.dr1fter.cliparsec.ParsingResult.SelectedCommand> nestedCommand()
 		{
-			return nestedCommand;
+			return Optional.fromNullable(nestedCommandOrNull);
 		}
 
 	}
 
-	static Optional<SelectedCommand> fromCommandStrStack(
-			Deque<String> commandStack)
+	/**
+	 * @param commandStack
+	 *            the names of the selected commands, the innermost one first (emptied by this method)
+	 * @return the outermost selected command or <code>null</code> if no command was selected
+	 */
+	static SelectedCommand fromCommandStrStack(Deque<String> commandStack)
 	{
 		if (commandStack.isEmpty())
-			return Optional.absent();
+			return null;
 
-		SelectedCommandImpl selCmd = new SelectedCommandImpl(
-				commandStack.removeLast());
-		selCmd.nestedCommand = fromCommandStrStack(commandStack);
-		return Optional.of((SelectedCommand) selCmd);
+		SelectedCommandImpl selCmd = new SelectedCommandImpl(commandStack.removeLast());
+		selCmd.nestedCommandOrNull = fromCommandStrStack(commandStack);
+		return selCmd;
 	}
 }
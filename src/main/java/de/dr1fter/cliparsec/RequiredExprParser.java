@@ -1,360 +1,307 @@
 package de.dr1fter.cliparsec;
 
-import static com.google.common.collect.Iterables.contains;
-import static com.google.common.collect.Lists.newArrayList;
 import static java.lang.String.format;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.BitSet;
+import java.util.Map;
 
 import com.google.common.annotations.Beta;
-import com.google.common.base.Predicate;
-import com.google.common.base.Strings;
-import com.google.common.primitives.Chars;
-
-import de.dr1fter.cliparsec.CliParserImpl.ParsingCtx;
-import de.dr1fter.cliparsec.CliParserImpl.ParsingCtx.FieldRegistration;
 
+import de.dr1fter.cliparsec.CliModel.OptionDescriptor;
+
+/**
+ * compiles the expressions of {@link de.dr1fter.cliparsec.annotations.Option#required()} into an expression tree.
+ * Expressions are compiled once when the model of an options type is built (so that syntax errors and references to
+ * unknown fields are reported at that time) and are evaluated against the set of options present in a parsing run.
+ * <p>
+ * The grammar (with <code>&amp;</code> taking precedence over <code>|</code>):
+ *
+ * <pre>
+ * expr    ::= and ( '|' and )*
+ * and     ::= unary ( '&amp;' unary )*
+ * unary   ::= '!' unary | primary
+ * primary ::= 'true' | 'false' | '(' expr ')' | 'present' '(' field ')'
+ * </pre>
+ *
+ * @author dr1fter
+ */
 @Beta
 public class RequiredExprParser
 {
-	enum Symbol
+	/**
+	 * a compiled required expression.
+	 */
+	static abstract class Expr
 	{
-		TRUE, FALSE, NOT, AND, OR, OB, CB
+		/**
+		 * @param present
+		 *            the ordinals of the options that were present in the parsed args
+		 * @return the expression's value
+		 */
+		abstract boolean evaluate(BitSet present);
 	}
 
-	private final ParsingCtx	ctx;
+	/** the expression denoted by the empty string (i.e. options are optional by default) */
+	static final Expr	FALSE	= new Constant(false);
+	static final Expr	TRUE	= new Constant(true);
+
+	private final String							expr;
+	private final Map<String, OptionDescriptor>	optionsByFieldName;
+	private int										pos	= 0;
 
-	public RequiredExprParser(ParsingCtx ctx)
+	private RequiredExprParser(String expr, Map<String, OptionDescriptor> optionsByFieldName)
 	{
-		this.ctx = ctx;
+		this.expr = expr;
+		this.optionsByFieldName = optionsByFieldName;
 	}
 
-	public boolean parse(String expr)
+	/**
+	 * compiles the given required expression.
+	 *
+	 * @param expr
+	 *            not <code>null</code>
+	 * @param optionsByFieldName
+	 *            the options that may be referenced using the <code>present(field)</code> function
+	 * @return the compiled expression, never <code>null</code>
+	 * @throws RuntimeException
+	 *             on syntax errors or references to unknown fields
+	 */
+	static Expr compile(String expr, Map<String, OptionDescriptor> optionsByFieldName)
 	{
-		return new ParsingExec().parse(expr);
+		if (expr.trim().isEmpty())
+			return FALSE; // per definitionem, the empty string means "not required" (==false)
+
+		RequiredExprParser parser = new RequiredExprParser(expr, optionsByFieldName);
+		Expr result = parser.parseOr();
+		parser.skipWhitespace();
+		if (parser.hasNext())
+			throw parser.syntaxError("unexpected token: " + parser.peek());
+		return result;
 	}
 
-	public boolean parse(FieldRegistration fr)
+	private Expr parseOr()
 	{
-		return parse(fr.annotation.required());
+		Expr left = parseAnd();
+		while (accept('|'))
+			left = new Or(left, parseAnd());
+		return left;
 	}
 
-	class ParsingExec
+	private Expr parseAnd()
 	{
+		Expr left = parseUnary();
+		while (accept('&'))
+			left = new And(left, parseUnary());
+		return left;
+	}
 
-		private char[]	expr;
-		private int		pos		= 0;
-		private int		depth	= 0;
-
-		Deque<Symbol>	stack	= new ArrayDeque<Symbol>();
-
-		private char next()
-		{
-			return expr[pos++];
-		}
-
-		private char peek()
-		{
-			return expr[pos];
-		}
-
-		private boolean hasNext()
+	private Expr parseUnary()
+	{
+		if (accept('!'))
 		{
-			return pos < expr.length;
+			Expr negated = parseUnary();
+			if (negated instanceof Constant)
+				return ((Constant) negated).value ? FALSE : TRUE;
+			return new Not(negated);
 		}
+		return parsePrimary();
+	}
 
-		public boolean parse(FieldRegistration registration)
+	private Expr parsePrimary()
+	{
+		skipWhitespace();
+		if (!hasNext())
+			throw syntaxError("unexpected end of expression");
+		if (accept('('))
 		{
-			return parse(registration.annotation.required());
+			Expr nested = parseOr();
+			if (!accept(')'))
+				throw syntaxError("expected ')'");
+			return nested;
 		}
+		if (acceptKeyword("true"))
+			return TRUE;
+		if (acceptKeyword("false"))
+			return FALSE;
+		if (acceptKeyword("present"))
+			return parsePresent();
+		throw syntaxError("unexpected token: " + peek());
+	}
 
-		public boolean parse(String expr)
-		{
-			if (Strings.isNullOrEmpty(expr.trim()))
-				return false; // per definitionem, the empty string means "not required" (==false)
-			this.expr = expr.toCharArray();
-
-			for (; hasNext();)
-			{
-				char c = peek();
-				switch (c)
-				{
-				case '(':
-					stack.push(Symbol.OB);
-					depth++;
-					next();
-					break;
-				case ')':
-					next();
-					depth--;
-					if (depth < 0)
-						throw new RuntimeException("closed bracket w/o opening");
-					evalBracketExpr();
-					break;
-				case 't':
-					acceptTrue();
-					stack.push(Symbol.TRUE);
-					break;
-				case 'f':
-					acceptFalse();
-					stack.push(Symbol.FALSE);
-					break;
-				case 'p':
-					acceptPresent();
-					break;
-				case '&':
-					stack.push(Symbol.AND);
-					next();
-					break;
-				case '|':
-					stack.push(Symbol.OR);
-					next();
-					break;
-				case '!':
-					stack.push(Symbol.NOT);
-					next();
-					break;
-				case ' ':
-				case '\t':
-				case '\n':
-					next();
-					break;// whitespace is ignored
-				default:
-					throw new RuntimeException("unexpected token: " + c);
-				}
-			}
-			stack=reverse(stack);
-			stack = evalNegations(stack);
-			Symbol r = evalStack(stack);
-			stack.push(r);
-
-			if (stack.size() != 1)
-				throw new RuntimeException(
-						"internal parsing error: stack size not as expected. Please report this as a bug.");
-			requireTerminal(r);
-			return r == Symbol.TRUE;// TODO: this will break if additional terminal symbols (other than true/false)
-									// were to be introduced
-		}
+	private Expr parsePresent()
+	{
+		if (!accept('('))
+			throw syntaxError("expected '(' after present");
+		skipWhitespace();
+		int start = pos;
+		while (hasNext() && Character.isJavaIdentifierPart(peek()))
+			pos++;
+		String field = expr.substring(start, pos);
+		if (!accept(')'))
+			throw syntaxError("no matching closing bracket for present expression");
+
+		OptionDescriptor option = optionsByFieldName.get(field);
+		if (option == null)
+			throw new RuntimeException(format("no such field in args object: '%s'", field));
+		return new Present(option.ordinal);
+	}
 
-		private void evalBracketExpr()
-		{
-			Deque<Symbol> exprStack = new ArrayDeque<Symbol>();
+	/**
+	 * consumes the given character (preceded by optional whitespace) if it is next.
+	 */
+	private boolean accept(char c)
+	{
+		skipWhitespace();
+		if (!hasNext() || peek() != c)
+			return false;
+		pos++;
+		return true;
+	}
 
-			for (;;)
-			{
-				Symbol elem = stack.pop();
-				Symbol pred = stack.peek();
-				boolean endReached = pred == Symbol.OB;
+	private boolean acceptKeyword(String keyword)
+	{
+		if (!expr.startsWith(keyword, pos))
+			return false;
+		int end = pos + keyword.length();
+		if (end < expr.length() && Character.isJavaIdentifierPart(expr.charAt(end)))
+			return false;
+		pos = end;
+		return true;
+	}
 
-				// if(! terminal(elem))
-				// throw new RuntimeException("unexpected token: " + elem.toString());
+	private void skipWhitespace()
+	{
+		while (hasNext() && Character.isWhitespace(peek()))
+			pos++;
+	}
 
-				exprStack.push(elem);
+	private boolean hasNext()
+	{
+		return pos < expr.length();
+	}
 
-				if (endReached)
-				{
-					stack.pop();// discard opening bracket
-					break;
-				}
-				// TODO: handle missing opening bracket
-			}
+	private char peek()
+	{
+		return expr.charAt(pos);
+	}
 
-			// process negations			
-			Deque<Symbol> evalStack = evalNegations(exprStack);
+	private RuntimeException syntaxError(String message)
+	{
+		return new RuntimeException(format("syntax error in required expression '%s' at position %d: %s", expr,
+				pos, message));
+	}
 
-			// process elements from exprStack and push result back to stack
-			Symbol result = evalStack(evalStack);
-			stack.push(result);
-		}
+	private static final class Constant extends Expr
+	{
+		private final boolean	value;
 
-		private Deque<Symbol> reverse(Deque<Symbol> stack)
+		Constant(boolean value)
 		{
-			Deque<Symbol> rStack = new ArrayDeque<RequiredExprParser.Symbol>(newArrayList(stack.descendingIterator()));
-			return rStack;
-		}
-		private Deque<Symbol> evalNegations(Deque<Symbol> lstack)
-		{
-			Deque<Symbol> evalStack = new ArrayDeque<Symbol>();
-			boolean negate = false;
-			for (; lstack.peek() != null;)
-			{
-				Symbol cs = lstack.pop();
-				switch (cs)
-				{
-				case NOT:
-					negate = !negate;
-					break;
-				case TRUE:
-				case FALSE:
-					cs = negate ? negate(cs) : cs;
-					if (negate)
-						negate = false;// reset negate flag
-					evalStack.push(cs);
-					break;
-				default:
-					evalStack.push(cs);
-				}
-			}
-			return evalStack;
+			this.value = value;
 		}
 
-		private Symbol evalStack(Deque<Symbol> lstack)
+		@Override
+		boolean evaluate(BitSet present)
 		{
-			Symbol s = lstack.pop();
-			requireTerminal(s);
-
-			if (lstack.isEmpty()) // terminate
-				return s;
-
-			Symbol booleanOperator = lstack.pop();
-			if (!booleanOperator(booleanOperator))
-				throw new RuntimeException(
-						"syntax error: expected boolean operand, but encountered: "
-								+ booleanOperator);
-
-			if (booleanOperator == Symbol.OR)
-				return or(s, evalStack(lstack));
-
-			// and has higher precedence than or
-			// we may safely assume that the next symbol is again a terminal (true or false)
-			// evaluate current symbol&next, push back to stack and continue w/ recursion
-			lstack.push(and(s, lstack.pop()));
-			return evalStack(lstack);
+			return value;
 		}
 
-		private Symbol requireTerminal(Symbol s)
+		@Override
+		public String toString()
 		{
-			if (!terminal(s))
-				throw new RuntimeException(
-						"syntax error: terminal symbol required, but encountered: "
-								+ s);
-			return s;
+			return String.valueOf(value);
 		}
+	}
 
-		private boolean terminal(Symbol s)
-		{
-			return s == Symbol.TRUE || s == Symbol.FALSE;
-		}
+	private static final class Present extends Expr
+	{
+		private final int	ordinal;
 
-		private boolean booleanOperator(Symbol s)
+		Present(int ordinal)
 		{
-			return contains(
-					newArrayList(new Symbol[] { Symbol.AND, Symbol.OR }), s);
+			this.ordinal = ordinal;
 		}
 
-		private Symbol or(Symbol left, Symbol right)
+		@Override
+		boolean evaluate(BitSet present)
 		{
-			requireTerminal(right);
-			requireTerminal(left);
-			return (left == Symbol.TRUE || right == Symbol.TRUE) ? Symbol.TRUE
-					: Symbol.FALSE;
+			return present.get(ordinal);
 		}
 
-		private Symbol and(Symbol left, Symbol right)
+		@Override
+		public String toString()
 		{
-			requireTerminal(right);
-			requireTerminal(left);
-			return (left == Symbol.TRUE && right == Symbol.TRUE) ? Symbol.TRUE
-					: Symbol.FALSE;
+			return "present(#" + ordinal + ")";
 		}
+	}
 
-		private Symbol negate(Symbol s)
-		{
-			if (!terminal(s))
-				throw new RuntimeException();
-			return s == Symbol.TRUE ? Symbol.FALSE : Symbol.TRUE;
-		}
+	private static final class Not extends Expr
+	{
+		private final Expr	expr;
 
-		private void acceptChr(char c)
+		Not(Expr expr)
 		{
-			if (!(peek() == c))
-				throw new RuntimeException(String.format(
-						"expected %s but encountered %s", c, peek()));
-			next();
+			this.expr = expr;
 		}
 
-		private void acceptStr(String str)
+		@Override
+		boolean evaluate(BitSet present)
 		{
-			for (char c : str.toCharArray())
-				acceptChr(c);
+			return !expr.evaluate(present);
 		}
 
-		private void skipWhitespace()
+		@Override
+		public String toString()
 		{
-			skipIfPresent(' ', '\t', '\n');
+			return "!" + expr;
 		}
+	}
 
-		private void skipIfPresent(char... cs)
-		{
-			for (; hasNext();)
-			{
-				char c = peek();
-				if (Chars.contains(cs, c))
-					next();
-				else
-					break;
-			}
+	private static final class And extends Expr
+	{
+		private final Expr	left;
+		private final Expr	right;
 
+		And(Expr left, Expr right)
+		{
+			this.left = left;
+			this.right = right;
 		}
 
-		private void acceptPresent()
+		@Override
+		boolean evaluate(BitSet present)
 		{
-			acceptStr("present");
-			skipWhitespace();
-			acceptStr("(");
-			StringBuilder s = new StringBuilder();
-			for (; hasNext();)
-			{
-				s.append(next());
-				if (peek() == ')')
-				{
-					next();// consume closing bracket
-					evaluateDefined(s.toString());// TODO
-					return;
-				}
-			}
-			throw new RuntimeException(
-					"no matching closing bracket for defined expression: "
-							+ s.toString());
+			return left.evaluate(present) && right.evaluate(present);
 		}
 
-		private void evaluateDefined(String field)
+		@Override
+		public String toString()
 		{
-			FieldRegistration fieldRegistration = ctx.fieldRegistration(field)
-					.orNull();
-			if (fieldRegistration == null)
-				throw new RuntimeException(format(
-						"no such field in args object: '%s'", field));
-
-			stack.push(fieldRegistration.occurs > 0 ? Symbol.TRUE
-					: Symbol.FALSE);
+			return "(" + left + "&" + right + ")";
 		}
+	}
+
+	private static final class Or extends Expr
+	{
+		private final Expr	left;
+		private final Expr	right;
 
-		private void acceptTrue()
+		Or(Expr left, Expr right)
 		{
-			acceptStr("true");
+			this.left = left;
+			this.right = right;
 		}
 
-		private void acceptFalse()
+		@Override
+		boolean evaluate(BitSet present)
 		{
-			acceptStr("false");
+			return left.evaluate(present) || right.evaluate(present);
 		}
-	}
 
-	static class Utils
-	{
-		static Predicate<FieldRegistration> required(
-				final RequiredExprParser rep)
+		@Override
+		public String toString()
 		{
-			return new Predicate<CliParserImpl.ParsingCtx.FieldRegistration>()
-			{
-				@Override
-				public boolean apply(FieldRegistration input)
-				{
-					return rep.parse(input);
-				}
-			};
+			return "(" + left + "|" + right + ")";
 		}
 	}
 }
@@ -0,0 +1,115 @@
+package de.dr1fter.cliparsec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * measures the resources consumed by the current thread between {@link #start()} and {@link #stop()}. Allocations are
+ * read from the per-thread allocation counters of HotSpot (<code>com.sun.management.ThreadMXBean</code>), which is
+ * only accessed if available. This class is only loaded if resource accounting is enabled (see
+ * {@link CliParser#withResourceAccounting()}).
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class ResourceAccounting
+{
+	private static final ThreadMXBean	threads				= ManagementFactory.getThreadMXBean();
+	private static final boolean		allocationsMeasured	= HotSpot.isAvailable(threads)
+																	&& HotSpot.allocationsMeasured(threads);
+
+	private final long					startAllocatedBytes;
+	private final long					startCpuTimeNanos;
+
+	private ResourceAccounting(long startAllocatedBytes, long startCpuTimeNanos)
+	{
+		this.startAllocatedBytes = startAllocatedBytes;
+		this.startCpuTimeNanos = startCpuTimeNanos;
+	}
+
+	static ResourceAccounting start()
+	{
+		return new ResourceAccounting(allocatedBytes(), cpuTimeNanos());
+	}
+
+	/**
+	 * @return the resources consumed since {@link #start()}, never <code>null</code>
+	 */
+	ResourceUsage stop()
+	{
+		long cpuTimeNanos = cpuTimeNanos();
+		long allocatedBytes = allocatedBytes();
+		return new Usage(startAllocatedBytes < 0 || allocatedBytes < 0 ? -1 : allocatedBytes - startAllocatedBytes,
+				startCpuTimeNanos < 0 || cpuTimeNanos < 0 ? -1 : cpuTimeNanos - startCpuTimeNanos);
+	}
+
+	private static long allocatedBytes()
+	{
+		return allocationsMeasured ? HotSpot.allocatedBytes(threads) : -1;
+	}
+
+	private static long cpuTimeNanos()
+	{
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+	}
+
+	/**
+	 * accesses the HotSpot-specific thread bean - only loaded if said bean is available.
+	 */
+	private static final class HotSpot
+	{
+		static boolean isAvailable(ThreadMXBean threads)
+		{
+			try
+			{
+				return Class.forName("com.sun.management.ThreadMXBean").isInstance(threads);
+			}
+			catch (ClassNotFoundException e)
+			{
+				return false;
+			}
+		}
+
+		static boolean allocationsMeasured(ThreadMXBean threads)
+		{
+			com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+			return hotSpotThreads.isThreadAllocatedMemorySupported() && hotSpotThreads.isThreadAllocatedMemoryEnabled();
+		}
+
+		static long allocatedBytes(ThreadMXBean threads)
+		{
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	private static final class Usage implements ResourceUsage
+	{
+		private final long	allocatedBytes;
+		private final long	cpuTimeNanos;
+
+		Usage(long allocatedBytes, long cpuTimeNanos)
+		{
+			this.allocatedBytes = allocatedBytes;
+			this.cpuTimeNanos = cpuTimeNanos;
+		}
+
+		@Override
+		public long allocatedBytes()
+		{
+			return allocatedBytes;
+		}
+
+		@Override
+		public long cpuTimeNanos()
+		{
+			return cpuTimeNanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "allocated " + allocatedBytes + " bytes, cpu time " + cpuTimeNanos + "ns";
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package de.dr1fter.cliparsec;
+
+/**
+ * the resources consumed by a single parsing run (see {@link CliParser#withResourceAccounting()}). Both figures are
+ * measured for the parsing thread, from the start of parsing up to the creation of the parsing result (including the
+ * output of help texts and error messages, but excluding operands that are read lazily afterwards).
+ *
+ * @author dr1fter
+ * @see ParsingResult#resourceUsage()
+ */
+public interface ResourceUsage
+{
+	/**
+	 * @return the amount of bytes allocated on the heap, or <code>-1</code> if the JVM does not support measuring
+	 *         per-thread allocations (or measuring is disabled)
+	 */
+	long allocatedBytes();
+
+	/**
+	 * @return the CPU time consumed, in nanoseconds, or <code>-1</code> if the JVM does not support measuring the
+	 *         CPU time of threads (or measuring is disabled)
+	 */
+	long cpuTimeNanos();
+}
@@ -0,0 +1,328 @@
+package de.dr1fter.cliparsec;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * expands response files: each arg of the form <code>@path</code> is replaced by the args contained in the denoted
+ * file. Args of the form <code>@@arg</code> are passed on as <code>@arg</code> (without being expanded).
+ * <p>
+ * Response files are UTF-8 encoded and contain either one arg per line or NUL-delimited args (as written by
+ * <code>find -print0</code>), depending on which delimiter occurs first. In line-delimited files, blank lines and
+ * surrounding whitespace are ignored and args may be quoted using <code>'</code> or <code>"</code> (within double
+ * quotes, a backslash escapes the following character). Response files may reference other response files (relative
+ * paths are resolved against the working directory); cyclic references are rejected.
+ * <p>
+ * Args are read lazily, i.e. response files are opened and tokenised only as far as the returned args are consumed.
+ * Larger files are memory-mapped rather than read.
+ * <p>
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class ResponseFiles
+{
+	static final char			PREFIX				= '@';
+	/** files smaller than this are read into the heap (mapping them would not pay off) */
+	private static final int	MAPPING_THRESHOLD	= 1 << 16;
+
+	private ResponseFiles()
+	{
+	}
+
+	/**
+	 * @return <code>true</code> iff any of the given args needs to be expanded (i.e. starts with {@link #PREFIX})
+	 */
+	static boolean containsResponseFiles(String[] args)
+	{
+		for (String arg : args)
+			if (arg.length() > 1 && arg.charAt(0) == PREFIX)
+				return true;
+		return false;
+	}
+
+	/**
+	 * @param args
+	 *            not <code>null</code>, not modified
+	 * @return the expanded args, never <code>null</code>. The iterator throws a {@link RuntimeException} if a response
+	 *         file cannot be read or is referenced cyclically.
+	 */
+	static Iterator<String> expand(String[] args)
+	{
+		return new Expander(asList(args).iterator());
+	}
+
+	/**
+	 * @param args
+	 *            not <code>null</code>
+	 * @return the expanded args (read from the given args as they are consumed), never <code>null</code>
+	 */
+	static Iterator<String> expand(Iterator<String> args)
+	{
+		return new Expander(args);
+	}
+
+	private static final class Expander implements Iterator<String>
+	{
+		private final Iterator<String>	args;
+		/** the response files currently being read (the innermost one first) */
+		private final Deque<Tokenizer>	open	= new ArrayDeque<Tokenizer>();
+		private String					next;
+
+		Expander(Iterator<String> args)
+		{
+			this.args = args;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (next == null)
+				next = computeNext();
+			return next != null;
+		}
+
+		@Override
+		public String next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			String result = next;
+			next = null;
+			return result;
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		private String computeNext()
+		{
+			for (;;)
+			{
+				String arg;
+				if (!open.isEmpty())
+				{
+					arg = open.peek().next();
+					if (arg == null)
+					{
+						open.pop();
+						continue;
+					}
+				}
+				else if (args.hasNext())
+					arg = args.next();
+				else
+					return null;
+
+				if (arg.length() < 2 || arg.charAt(0) != PREFIX)
+					return arg;
+				if (arg.charAt(1) == PREFIX)
+					return arg.substring(1); // escaped
+				open(arg.substring(1));
+			}
+		}
+
+		private void open(String path)
+		{
+			File file;
+			try
+			{
+				file = new File(path).getCanonicalFile();
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(format("could not read response file '%s'", path), e);
+			}
+
+			for (Tokenizer tokenizer : open)
+				if (tokenizer.file.equals(file))
+					throw new RuntimeException(format("cyclic response file reference: %s", describeCycle(file)));
+
+			open.push(new Tokenizer(file, read(file)));
+		}
+
+		private String describeCycle(File file)
+		{
+			StringBuilder s = new StringBuilder();
+			for (Iterator<Tokenizer> i = open.descendingIterator(); i.hasNext();)
+				s.append(i.next().file).append(" -> ");
+			return s.append(file).toString();
+		}
+	}
+
+	private static ByteBuffer read(File file)
+	{
+		try
+		{
+			FileChannel channel = new FileInputStream(file).getChannel();
+			try
+			{
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE)
+					throw new RuntimeException(format("response file too large: '%s'", file));
+				if (size >= MAPPING_THRESHOLD)
+					return channel.map(MapMode.READ_ONLY, 0, size);
+
+				ByteBuffer bytes = ByteBuffer.allocate((int) size);
+				while (bytes.hasRemaining() && channel.read(bytes) >= 0)
+					;
+				bytes.flip();
+				return bytes;
+			}
+			finally
+			{
+				channel.close(); // mappings remain valid
+			}
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(format("could not read response file '%s'", file), e);
+		}
+	}
+
+	/**
+	 * splits the contents of a response file into args.
+	 */
+	private static final class Tokenizer
+	{
+		final File					file;
+		private final ByteBuffer	bytes;
+		private final int			limit;
+		private int					pos;
+		private boolean				delimiterKnown;
+		private boolean				nulDelimited;
+
+		Tokenizer(File file, ByteBuffer bytes)
+		{
+			this.file = file;
+			this.bytes = bytes;
+			this.pos = bytes.position();
+			this.limit = bytes.limit();
+		}
+
+		/**
+		 * @return the next arg or <code>null</code> if there is none
+		 */
+		String next()
+		{
+			if (!delimiterKnown)
+				determineDelimiter();
+			return nulDelimited ? nextNulDelimited() : nextLine();
+		}
+
+		private void determineDelimiter()
+		{
+			for (int i = pos; i < limit; i++)
+			{
+				byte b = bytes.get(i);
+				if (b == '\n')
+					break;
+				if (b == 0)
+				{
+					nulDelimited = true;
+					break;
+				}
+			}
+			delimiterKnown = true;
+		}
+
+		private String nextNulDelimited()
+		{
+			while (pos < limit && bytes.get(pos) == 0)
+				pos++;
+			if (pos == limit)
+				return null;
+
+			int start = pos;
+			while (pos < limit && bytes.get(pos) != 0)
+				pos++;
+			return decode(start, pos);
+		}
+
+		private String nextLine()
+		{
+			skipWhitespace(true);
+			if (pos == limit)
+				return null;
+
+			byte b = bytes.get(pos);
+			if (b == '"' || b == '\'')
+				return quoted(b);
+
+			int start = pos;
+			while (pos < limit && bytes.get(pos) != '\n')
+				pos++;
+			int end = pos;
+			while (end > start && isWhitespace(bytes.get(end - 1)))
+				end--;
+			return decode(start, end);
+		}
+
+		private String quoted(byte quote)
+		{
+			int start = ++pos;
+			boolean escaped = false;
+			for (; pos < limit && bytes.get(pos) != quote; pos++)
+				if (quote == '"' && bytes.get(pos) == '\\')
+				{
+					escaped = true;
+					pos++;
+				}
+			if (pos >= limit)
+				throw new RuntimeException(format("unterminated quote in response file '%s'", file));
+
+			String arg = decode(start, pos++);
+			skipWhitespace(false);
+			if (pos < limit && bytes.get(pos) != '\n')
+				throw new RuntimeException(format("unexpected characters after quoted arg %s in response file '%s'",
+						arg, file));
+			return escaped ? unescape(arg) : arg;
+		}
+
+		private void skipWhitespace(boolean skipNewlines)
+		{
+			for (; pos < limit && isWhitespace(bytes.get(pos)); pos++)
+				if (!skipNewlines && bytes.get(pos) == '\n')
+					return;
+		}
+
+		private static boolean isWhitespace(byte b)
+		{
+			return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+		}
+
+		private static String unescape(String arg)
+		{
+			StringBuilder s = new StringBuilder(arg.length());
+			for (int i = 0; i < arg.length(); i++)
+			{
+				char c = arg.charAt(i);
+				s.append(c == '\\' && i + 1 < arg.length() ? arg.charAt(++i) : c);
+			}
+			return s.toString();
+		}
+
+		private String decode(int start, int end)
+		{
+			ByteBuffer region = bytes.duplicate();
+			region.limit(end);
+			region.position(start);
+			return UTF_8.decode(region).toString();
+		}
+	}
+}
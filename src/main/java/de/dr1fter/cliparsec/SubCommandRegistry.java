@@ -0,0 +1,25 @@
+package de.dr1fter.cliparsec;
+
+import java.util.Map;
+
+import de.dr1fter.cliparsec.annotations.SubCommands;
+
+/**
+ * provides sub-commands for the fields annotated with {@link SubCommands}. Implementations are discovered using
+ * {@link java.util.ServiceLoader}, i.e. they are listed in
+ * <code>META-INF/services/de.dr1fter.cliparsec.SubCommandRegistry</code> and must possess a public no-args
+ * constructor. Registries should be lightweight - in particular, they should refer to the sub-commands' options types
+ * by name only (so that those are only loaded when the respective sub-command is selected).
+ * 
+ * @author dr1fter
+ */
+public interface SubCommandRegistry
+{
+	/**
+	 * @param group
+	 *            the name of the group of sub-commands (see {@link SubCommands#value()}), never <code>null</code>
+	 * @return the fully qualified (binary) names of the options types of the group's sub-commands, by command name;
+	 *         empty if the registry does not provide sub-commands for the given group, never <code>null</code>
+	 */
+	Map<String, String> subCommands(String group);
+}
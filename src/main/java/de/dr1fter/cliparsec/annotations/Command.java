@@ -22,6 +22,11 @@ import java.lang.annotation.Target;
  * More concrete, automatic initialisation <em>will fail</em> for non-static embedded types that reside in any other
  * hosting type than the one possessing the member annotated with this annotation. In those cases, the annotated field
  * must be initialised with a non-null reference.
+ * <p>
+ * <b>Lazy sub-commands</b> If {@link #typeName()} is specified, the sub-command's options type is only loaded when
+ * the sub-command is selected (help texts and the dispatch to sub-commands only depend on the command's name). In that
+ * case, the annotated field is typically declared as {@link Object}, so that inspecting the declaring type does not
+ * load the sub-command's options type either. See {@link SubCommands} for sub-commands discovered at runtime.
  * 
  * 
  * @author dr1fter
@@ -39,4 +44,13 @@ public @interface Command
 	 * @return never <code>null</code>
 	 */
 	String name();
+
+	/**
+	 * The fully qualified (binary) name of the sub-command's options type, which is loaded (using the class loader of
+	 * the type declaring the annotated field) only when the sub-command is selected. The type must be assignable to
+	 * the annotated field. By default, the annotated field's type is the sub-command's options type.
+	 * 
+	 * @return never <code>null</code>
+	 */
+	String typeName() default "";
 }
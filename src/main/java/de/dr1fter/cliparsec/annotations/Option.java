@@ -112,6 +112,9 @@ public @interface Option
 	 * <p>
 	 * 
 	 * <em>Note: the return type of the converter <b>must</b> be assignment-compatible to the annotated field.</em>
+	 * <p>
+	 * Converters are instantiated upon the first use of the option within a parsing run. Converters that are
+	 * annotated {@link Stateless} are instantiated only once and shared.
 	 * 
 	 * @return the converter
 	 */
@@ -0,0 +1,23 @@
+package de.dr1fter.cliparsec.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * declares that a converter (see {@link Option#converter()}) is stateless and thread-safe. A single instance of such
+ * a converter is shared by all options, parsing runs and threads.
+ * <p>
+ * Converters that are not annotated are instantiated once per parsing run upon the first use of the respective
+ * option.
+ * 
+ * @author dr1fter
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Stateless
+{
+}
@@ -0,0 +1,31 @@
+package de.dr1fter.cliparsec.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A group of sub-commands that are discovered at runtime, e.g. the sub-commands contributed by plugins. The
+ * sub-commands (i.e. their names and the names of their options types) are provided by the
+ * {@link de.dr1fter.cliparsec.SubCommandRegistry} implementations found by {@link java.util.ServiceLoader} (using the
+ * class loader of the type declaring the annotated field) when the declaring type is inspected.
+ * <p>
+ * Like for {@link Command#typeName()}, a sub-command's options type is only loaded when the sub-command is selected.
+ * The selected sub-command's options object is assigned to the annotated field (replacing an existing object of
+ * another type), thus the field's type must be a supertype of all provided options types (typically {@link Object}).
+ * Sub-commands declared using {@link Command} take precedence over equally named sub-commands of a group.
+ * 
+ * @author dr1fter
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface SubCommands
+{
+	/**
+	 * The name of the group, passed to {@link de.dr1fter.cliparsec.SubCommandRegistry#subCommands(String)}.
+	 * 
+	 * @return never <code>null</code>
+	 */
+	String value() default "";
+}
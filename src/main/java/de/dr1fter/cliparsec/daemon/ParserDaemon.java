@@ -0,0 +1,337 @@
+package de.dr1fter.cliparsec.daemon;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_READ;
+import static java.nio.file.attribute.PosixFilePermission.OWNER_WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.dr1fter.cliparsec.CliParser;
+import de.dr1fter.cliparsec.ParsingResult;
+import de.dr1fter.cliparsec.ParsingResult.SelectedCommand;
+import de.dr1fter.cliparsec.ParsingResult.Status;
+
+/**
+ * a resident daemon serving parsing requests for an options type over a loopback socket. Keeping the daemon running
+ * avoids paying for JVM startup, model construction and warm-up on every invocation of a command line interface: the
+ * {@link ParserDaemonClient} forwards the command line arguments to the daemon and receives the output (help and
+ * error messages as well as any output of the {@link CommandHandler}) and the parsing result.
+ * <p>
+ * The daemon only accepts connections from the local host and only serves requests carrying its secret token (see
+ * {@link #token()}), which is generated upon start. To hand the token to the clients of the current user only, write
+ * it to a file that is readable by its owner only (see {@link #writeToken(File)}). Each connection serves a single
+ * request. Requests are served by a bounded amount of threads; connections exceeding the bounded request queue are
+ * closed right away.
+ * <p>
+ * The args are parsed as sent. In particular, response files (<code>@path</code>) are not expanded - they would be
+ * read with the daemon's privileges and relative to the daemon's working directory.
+ *
+ * @author dr1fter
+ */
+public final class ParserDaemon<T> implements Closeable
+{
+	/** exit code for successful invocations (including help) */
+	public static final int	EXIT_SUCCESS	= 0;
+	/** exit code for invalid arguments */
+	public static final int	EXIT_ERROR		= 1;
+
+	/** the amount of threads serving requests */
+	private static final int	THREADS					= Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+	/** the amount of accepted connections waiting for a thread */
+	private static final int	QUEUED_CONNECTIONS		= 64;
+	/** the time a client may take to send its request */
+	private static final int	REQUEST_TIMEOUT_MS		= 10000;
+	private static final int	TOKEN_BYTES				= 32;
+	/** the maximum pause after failures to accept connections */
+	private static final long	MAX_ACCEPT_BACKOFF_MS	= 1000;
+
+	/**
+	 * executes the command denoted by the parsed options within the daemon.
+	 */
+	public interface CommandHandler<T>
+	{
+		/**
+		 * @param result
+		 *            the parsing result (of any status), not <code>null</code>. If a sub-command was selected, its
+		 *            options object is returned by {@link ParsingResult#options()}.
+		 * @param out
+		 *            the output stream forwarded to the client, not <code>null</code>
+		 * @return the exit code to be returned by the client
+		 */
+		int execute(ParsingResult<T> result, OutputStream out) throws Exception;
+	}
+
+	/** maps the parsing status to an exit code, without executing anything */
+	private static final CommandHandler<Object>	NO_COMMAND	= new CommandHandler<Object>()
+	{
+		@Override
+		public int execute(ParsingResult<Object> result, OutputStream out)
+		{
+			return result.status() == Status.ERROR ? EXIT_ERROR : EXIT_SUCCESS;
+		}
+	};
+
+	private final CliParser				parser;
+	private final Supplier<T>			options;
+	private final CommandHandler<T>		handler;
+	private final ServerSocket			serverSocket;
+	private final String				token;
+	private final ThreadFactory			threads;
+	private final ExecutorService		connections;
+
+	private ParserDaemon(CliParser parser, Supplier<T> options, CommandHandler<T> handler, ServerSocket serverSocket)
+	{
+		this.parser = parser;
+		this.options = options;
+		this.handler = handler;
+		this.serverSocket = serverSocket;
+
+		byte[] tokenBytes = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(tokenBytes);
+		this.token = BaseEncoding.base16().lowerCase().encode(tokenBytes);
+
+		this.threads = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cli-parsec-daemon-%d").build();
+		this.connections = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(QUEUED_CONNECTIONS), threads);
+	}
+
+	/**
+	 * starts a daemon that parses the requested args into the options objects created by the given supplier and
+	 * replies with the parsing result (without executing any command).
+	 *
+	 * @param port
+	 *            the loopback port to listen on (0 for an arbitrary free port, see {@link #port()})
+	 */
+	public static <T> ParserDaemon<T> start(int port, Supplier<T> options) throws IOException
+	{
+		@SuppressWarnings("unchecked")
+		CommandHandler<T> noCommand = (CommandHandler<T>) (CommandHandler<?>) NO_COMMAND;
+		return start(port, options, noCommand);
+	}
+
+	/**
+	 * starts a daemon that parses the requested args into the options objects created by the given supplier and
+	 * executes the given handler for each parsing result. The supplier is invoked once upon start in order to
+	 * determine the options type, whose model is derived up-front (nothing is parsed).
+	 *
+	 * @param port
+	 *            the loopback port to listen on (0 for an arbitrary free port, see {@link #port()})
+	 * @param options
+	 *            not <code>null</code>
+	 * @param handler
+	 *            not <code>null</code>
+	 */
+	public static <T> ParserDaemon<T> start(int port, Supplier<T> options, CommandHandler<T> handler)
+			throws IOException
+	{
+		checkNotNull(options);
+		checkNotNull(handler);
+
+		try
+		{
+			CliParser.prepare(options.get().getClass());
+		}
+		catch (RuntimeException e)
+		{
+			throw new IllegalArgumentException("invalid options type", e);
+		}
+		// response files must stay disabled (see the class comment)
+		CliParser parser = CliParser.createCliParser(ByteStreams.nullOutputStream());
+
+		ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		final ParserDaemon<T> daemon = new ParserDaemon<T>(parser, options, handler, serverSocket);
+		daemon.threads.newThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				daemon.accept();
+			}
+		}).start();
+		return daemon;
+	}
+
+	/**
+	 * @return the port the daemon listens on
+	 */
+	public int port()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return the secret token clients have to send along with their requests, never <code>null</code>
+	 */
+	public String token()
+	{
+		return token;
+	}
+
+	/**
+	 * writes the token (see {@link #token()}) to the given file, replacing any existing file. The file is made readable
+	 * and writable by its owner only.
+	 *
+	 * @return the given file
+	 */
+	public File writeToken(File file) throws IOException
+	{
+		Path path = file.toPath();
+		Files.deleteIfExists(path);
+		try
+		{
+			Files.createFile(path, PosixFilePermissions.asFileAttribute(EnumSet.of(OWNER_READ, OWNER_WRITE)));
+		}
+		catch (UnsupportedOperationException e)
+		{
+			// not a POSIX file system
+			Files.createFile(path);
+			if (!(file.setReadable(false, false) && file.setReadable(true, true) && file.setWritable(false, false)
+					&& file.setWritable(true, true)))
+				throw new IOException("failed to restrict the permissions of: " + file);
+		}
+		Files.write(path, token.getBytes(Charsets.UTF_8));
+		return file;
+	}
+
+	/**
+	 * stops accepting connections. Requests that are currently being served are completed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		serverSocket.close();
+		connections.shutdown();
+	}
+
+	private void accept()
+	{
+		long backoff = 0;
+		while (!serverSocket.isClosed())
+		{
+			final Socket socket;
+			try
+			{
+				socket = serverSocket.accept();
+				backoff = 0;
+			}
+			catch (IOException e)
+			{
+				if (serverSocket.isClosed())
+					return;
+				// e.g. too many open files - pause rather than retrying at once (which would keep failing)
+				backoff = Math.min(Math.max(2 * backoff, 10), MAX_ACCEPT_BACKOFF_MS);
+				try
+				{
+					Thread.sleep(backoff);
+				}
+				catch (InterruptedException interrupted)
+				{
+					return;
+				}
+				continue;
+			}
+			try
+			{
+				connections.execute(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						serve(socket);
+					}
+				});
+			}
+			catch (RejectedExecutionException e)
+			{
+				close(socket); // overloaded (or shut down)
+			}
+		}
+	}
+
+	private void serve(Socket socket)
+	{
+		try
+		{
+			socket.setSoTimeout(REQUEST_TIMEOUT_MS);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			OutputStream output = Protocol.outputFrames(out);
+
+			String[] args = Protocol.readRequest(in, token);
+			socket.setSoTimeout(0);
+			try
+			{
+				ParsingResult<T> result = parser.parse(options.get(), output, args);
+				int exitCode = handler.execute(result, output);
+				Protocol.writeResult(out, result.status(), exitCode, commandsOf(result), result.operandList());
+			}
+			catch (Exception e)
+			{
+				PrintStream error = new PrintStream(output, true);
+				error.println("ERROR: " + e.getMessage());
+				Protocol.writeResult(out, Status.ERROR, EXIT_ERROR, new ArrayList<String>(),
+						new ArrayList<String>());
+			}
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			// the client went away or sent a malformed or unauthorised request - nothing to reply to
+		}
+		finally
+		{
+			close(socket);
+		}
+	}
+
+	private static void close(Socket socket)
+	{
+		try
+		{
+			socket.close();
+		}
+		catch (IOException e)
+		{
+			/* ignore */
+		}
+	}
+
+	private static List<String> commandsOf(ParsingResult<?> result)
+	{
+		List<String> commands = new ArrayList<String>();
+		for (Optional<SelectedCommand> c = result.selectedCommand(); c.isPresent(); c = c.get().nestedCommand())
+			commands.add(c.get().commandName());
+		return commands;
+	}
+}
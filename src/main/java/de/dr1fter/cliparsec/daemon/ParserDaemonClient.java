@@ -0,0 +1,136 @@
+package de.dr1fter.cliparsec.daemon;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOfRange;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.List;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+
+/**
+ * a thin client forwarding command line arguments to a {@link ParserDaemon} and the daemon's output to stdout. Usage:
+ *
+ * <pre>
+ * java -cp cli-parsec.jar de.dr1fter.cliparsec.daemon.ParserDaemonClient &lt;port&gt; &lt;token file&gt; [args...]
+ * </pre>
+ *
+ * The token file is the one written by {@link ParserDaemon#writeToken(File)}. The client exits with the exit code
+ * returned by the daemon. The args are sent as they are - response files (<code>@path</code>) are not expanded.
+ *
+ * @author dr1fter
+ */
+public final class ParserDaemonClient
+{
+	private ParserDaemonClient()
+	{
+	}
+
+	/**
+	 * the daemon's reply to a request.
+	 */
+	public static final class Reply
+	{
+		private final Status		status;
+		private final int			exitCode;
+		private final List<String>	commands;
+		private final List<String>	operands;
+
+		Reply(Status status, int exitCode, List<String> commands, List<String> operands)
+		{
+			this.status = status;
+			this.exitCode = exitCode;
+			this.commands = unmodifiableList(commands);
+			this.operands = unmodifiableList(operands);
+		}
+
+		public Status status()
+		{
+			return status;
+		}
+
+		public int exitCode()
+		{
+			return exitCode;
+		}
+
+		/**
+		 * @return the names of the selected (sub-)commands, the outermost one first, never <code>null</code>
+		 */
+		public List<String> commands()
+		{
+			return commands;
+		}
+
+		public List<String> operands()
+		{
+			return operands;
+		}
+	}
+
+	/**
+	 * sends the given args to the daemon listening on the given loopback port.
+	 *
+	 * @param token
+	 *            the daemon's token (see {@link ParserDaemon#token()}), not <code>null</code>. The daemon closes the
+	 *            connection without replying if the token is wrong.
+	 * @param output
+	 *            receives the daemon's output as it is produced, not <code>null</code>
+	 * @return the daemon's reply, never <code>null</code>
+	 * @throws IOException
+	 *             if the daemon cannot be reached or the connection fails
+	 */
+	public static Reply send(int port, String token, OutputStream output, String... args) throws IOException
+	{
+		requireNonNull(token);
+		requireNonNull(output);
+		requireNonNull(args);
+
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			Protocol.writeRequest(out, token, args);
+			out.flush();
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			return Protocol.readResponse(in, output);
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	/**
+	 * @return the token stored in the given file (see {@link ParserDaemon#writeToken(File)})
+	 */
+	public static String readToken(File file) throws IOException
+	{
+		return new String(Files.readAllBytes(file.toPath()), UTF_8).trim();
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.err.println("usage: ParserDaemonClient <port> <token file> [args...]");
+			System.exit(2);
+		}
+
+		String token = readToken(new File(args[1]));
+		Reply reply = send(Integer.parseInt(args[0]), token, System.out, copyOfRange(args, 2, args.length));
+		System.exit(reply.exitCode());
+	}
+}
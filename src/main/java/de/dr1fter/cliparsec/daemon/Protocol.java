@@ -0,0 +1,172 @@
+package de.dr1fter.cliparsec.daemon;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+
+/**
+ * the wire protocol between {@link ParserDaemonClient} and {@link ParserDaemon}. All integers are big-endian, strings
+ * are UTF-8 encoded and prefixed by their length in bytes.
+ *
+ * <pre>
+ * request  ::= VERSION token argc arg*
+ * response ::= ( OUTPUT length byte* )* RESULT status exitCode commandCount command* operandCount operand*
+ * </pre>
+ *
+ * this is an internal implementation class.
+ *
+ * @author dr1fter
+ */
+final class Protocol
+{
+	static final int	VERSION				= 2;
+	/** frame containing a chunk of output */
+	static final byte	OUTPUT				= 'O';
+	/** frame containing the parsing result (always the last frame) */
+	static final byte	RESULT				= 'R';
+
+	private static final int	MAX_STRING_LENGTH	= 1 << 24;
+
+	private Protocol()
+	{
+	}
+
+	static void writeRequest(DataOutputStream out, String token, String[] args) throws IOException
+	{
+		out.writeInt(VERSION);
+		writeString(out, token);
+		out.writeInt(args.length);
+		for (String arg : args)
+			writeString(out, arg);
+	}
+
+	/**
+	 * @throws IOException
+	 *             also if the request does not carry the expected token
+	 */
+	static String[] readRequest(DataInputStream in, String expectedToken) throws IOException
+	{
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException(format("unsupported protocol version: %d (expected %d)", version, VERSION));
+		byte[] token = readString(in).getBytes(UTF_8);
+		if (!MessageDigest.isEqual(token, expectedToken.getBytes(UTF_8))) // constant time
+			throw new IOException("invalid token");
+		return readStrings(in).toArray(new String[0]);
+	}
+
+	static void writeResult(DataOutputStream out, Status status, int exitCode, List<String> commands,
+			List<String> operands) throws IOException
+	{
+		out.writeByte(RESULT);
+		writeString(out, status.name());
+		out.writeInt(exitCode);
+		writeStrings(out, commands);
+		writeStrings(out, operands);
+	}
+
+	/**
+	 * reads the response, copying all output to the given stream.
+	 */
+	static ParserDaemonClient.Reply readResponse(DataInputStream in, OutputStream output) throws IOException
+	{
+		byte[] buffer = new byte[8192];
+		for (;;)
+		{
+			byte frame = in.readByte();
+			if (frame == RESULT)
+				break;
+			if (frame != OUTPUT)
+				throw new IOException(format("malformed response: unexpected frame type %d", frame));
+
+			for (int remaining = in.readInt(); remaining > 0;)
+			{
+				int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+				if (read < 0)
+					throw new IOException("malformed response: truncated output frame");
+				output.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+		output.flush();
+
+		Status status = Status.valueOf(readString(in));
+		int exitCode = in.readInt();
+		return new ParserDaemonClient.Reply(status, exitCode, readStrings(in), readStrings(in));
+	}
+
+	/**
+	 * @return a stream writing to the given stream in {@link #OUTPUT} frames
+	 */
+	static OutputStream outputFrames(final DataOutputStream out)
+	{
+		return new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException
+			{
+				if (len == 0)
+					return;
+				out.writeByte(OUTPUT);
+				out.writeInt(len);
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException
+			{
+				out.flush();
+			}
+		};
+	}
+
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException
+	{
+		out.writeInt(strings.size());
+		for (String s : strings)
+			writeString(out, s);
+	}
+
+	private static List<String> readStrings(DataInputStream in) throws IOException
+	{
+		int count = in.readInt();
+		if (count < 0)
+			throw new IOException("malformed message: negative count");
+		List<String> strings = new ArrayList<String>(Math.min(count, 1024));
+		for (int i = 0; i < count; i++)
+			strings.add(readString(in));
+		return strings;
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0 || length > MAX_STRING_LENGTH)
+			throw new IOException(format("malformed message: invalid string length %d", length));
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
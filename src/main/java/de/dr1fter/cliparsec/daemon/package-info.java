@@ -0,0 +1,5 @@
+/**
+ * contains a resident daemon that serves parsing requests over a loopback socket and a thin client forwarding command
+ * line arguments to it (avoiding JVM startup for every invocation of a command line interface)
+ */
+package de.dr1fter.cliparsec.daemon;
@@ -16,5 +16,9 @@
  * Declare an additional type for each supported (sub-)command. Add an instance of each sub command type to the
  * toplevel options type and annotate it with the 'Command' annotation.
  * 
+ * <p>
+ * Parsing only uses JDK types internally: apart from the converters (which implement Guava's <code>Function</code>)
+ * and the <code>Optional</code>s returned upon request, no Guava types are loaded by a parsing run. This keeps the
+ * amount of classes loaded by short-lived command line programs low.
  */
 package de.dr1fter.cliparsec;
@@ -16,6 +16,7 @@ import org.junit.rules.TemporaryFolder;
 import de.dr1fter.cliparsec.Converters;
 import de.dr1fter.cliparsec.CliParser;
 import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.annotations.Stateless;
 
 public class ArgConvertersTest
 {
@@ -79,6 +80,52 @@ public class ArgConvertersTest
 		public File		file;
 	}
 	
+	@Test
+	public void converters_should_be_instantiated_lazily_and_shared_if_stateless() throws Exception
+	{
+		CountingConverter.instances = 0;
+		StatelessCountingConverter.instances = 0;
+
+		examinee.parse(new OptionsWithCountingConverters(), "--shared", "a");
+		examinee.parse(new OptionsWithCountingConverters(), "--shared", "b");
+		assertThat(CountingConverter.instances, is(0));
+
+		examinee.parse(new OptionsWithCountingConverters(), "--perParse", "a", "--shared", "c");
+		examinee.parse(new OptionsWithCountingConverters(), "--perParse", "b");
+		assertThat(CountingConverter.instances, is(2));
+		assertThat(StatelessCountingConverter.instances, is(1));
+	}
+
+	public static class CountingConverter extends Converters.Identity
+	{
+		static int	instances;
+
+		public CountingConverter()
+		{
+			instances++;
+		}
+	}
+
+	@Stateless
+	public static class StatelessCountingConverter extends Converters.Identity
+	{
+		static int	instances;
+
+		public StatelessCountingConverter()
+		{
+			instances++;
+		}
+	}
+
+	private static class OptionsWithCountingConverters
+	{
+		@Option(converter = CountingConverter.class)
+		String	perParse;
+
+		@Option(converter = StatelessCountingConverter.class)
+		String	shared;
+	}
+
 	@Test
 	public void file_option_in_array_should_be_properly_assigned() throws Exception
 	{
@@ -0,0 +1,119 @@
+package de.dr1fter.cliparsec;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class BatchParsingTest
+{
+	CliParser	examinee	= CliParser.createCliParser(new ByteArrayOutputStream());
+
+	@Test
+	public void results_should_be_returned_in_input_order() throws Exception
+	{
+		List<String[]> argVectors = newArrayList();
+		for (int i = 0; i < 10000; i++)
+			argVectors.add(new String[] { "--count", String.valueOf(i), "--names", "a", "b" });
+
+		List<ParsingResult<Options>> results = examinee.parseAll(newOptions(), argVectors);
+
+		assertThat(results.size(), is(10000));
+		for (int i = 0; i < results.size(); i++)
+		{
+			assertThat(results.get(i).status(), is(Status.SUCCESS));
+			assertThat(results.get(i).options().count, is(i));
+			assertThat(results.get(i).options().names.length, is(2));
+		}
+	}
+
+	@Test
+	public void malformed_entries_should_not_abort_the_batch() throws Exception
+	{
+		List<String[]> argVectors = newArrayList();
+		argVectors.add(new String[] { "--count", "1" });
+		argVectors.add(new String[] { "--unknown" });
+		argVectors.add(new String[] { "--count", "no number" });
+		argVectors.add(new String[] { "--count", "4" });
+
+		List<ParsingResult<Options>> results = examinee.parseAll(newOptions(), argVectors);
+
+		assertThat(results.get(0).options().count, is(1));
+		assertThat(results.get(1).status(), is(Status.ERROR));
+		assertThat(results.get(1).failure().get().getMessage(), containsString("--unknown"));
+		assertThat(results.get(2).status(), is(Status.ERROR));
+		assertThat(results.get(2).failure().isPresent(), is(true));
+		assertThat(results.get(3).options().count, is(4));
+		assertThat(results.get(3).failure().isPresent(), is(false));
+	}
+
+	@Test
+	public void failing_options_factories_should_be_reported_per_entry() throws Exception
+	{
+		List<ParsingResult<Options>> results = examinee.parseAll(new Supplier<Options>()
+		{
+			@Override
+			public Options get()
+			{
+				throw new IllegalStateException("no options");
+			}
+		}, newArrayList(new String[] { "--count", "1" }, new String[0]));
+
+		assertThat(results.size(), is(2));
+		assertThat(results.get(0).options(), is(nullValue()));
+		assertThat(results.get(1).failure().get().getMessage(), equalTo("no options"));
+	}
+
+	@Test
+	public void batch_should_be_parsed_by_the_given_executor() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try
+		{
+			List<ParsingResult<Options>> results = examinee.parseAll(newOptions(),
+					newArrayList(new String[] { "--count", "1" }, new String[] { "--count", "2" }), executor);
+
+			assertThat(results.get(0).options().count, is(1));
+			assertThat(results.get(1).options().count, is(2));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private static Supplier<Options> newOptions()
+	{
+		return new Supplier<Options>()
+		{
+			@Override
+			public Options get()
+			{
+				return new Options();
+			}
+		};
+	}
+
+	static class Options
+	{
+		@Option(converter = Converters.IntegerValue.class)
+		int			count;
+
+		@Option
+		String[]	names;
+	}
+}
@@ -0,0 +1,240 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.annotations.SubCommands;
+
+/**
+ * verifies the classes loaded by a first parsing run. Each scenario runs in a fresh class loader (i.e. as if it was
+ * the first parsing run of a freshly started JVM) that records all classes it loads.
+ * <p>
+ * The sub-commands of group "plugins" are provided by {@link LazySubCommandTest.Registry}.
+ */
+public class ClassLoadingTest
+{
+	/** the only Guava type that may be loaded: converters implement it (see {@link Option#converter()}) */
+	private static final Set<String>	PERMITTED_GUAVA_CLASSES	= Collections
+			.singleton("com.google.common.base.Function");
+	private static final String			LAZY_SUB_OPTIONS		= "de.dr1fter.cliparsec.ClassLoadingTest$LazySubOptions";
+
+	@Test
+	public void parsing_options_should_not_load_guava_classes() throws Exception
+	{
+		assertThat(guavaClassesLoadedBy("parseOptions"), is(empty()));
+	}
+
+	@Test
+	public void parsing_sub_commands_should_not_load_guava_classes() throws Exception
+	{
+		assertThat(guavaClassesLoadedBy("parseSubCommand"), is(empty()));
+	}
+
+	@Test
+	public void printing_help_should_not_load_guava_classes() throws Exception
+	{
+		assertThat(guavaClassesLoadedBy("printHelp"), is(empty()));
+	}
+
+	@Test
+	public void reporting_missing_options_should_not_load_guava_classes() throws Exception
+	{
+		assertThat(guavaClassesLoadedBy("reportMissingOption"), is(empty()));
+	}
+
+	@Test
+	public void lazy_sub_command_types_should_not_be_loaded_for_help() throws Exception
+	{
+		Set<String> loaded = classesLoadedBy("printLazyHelp");
+
+		assertThat(loaded, not(hasItem(LAZY_SUB_OPTIONS)));
+		assertThat(loaded, not(hasItem(LazySubCommandTest.DeployOptions.class.getName())));
+	}
+
+	@Test
+	public void lazy_sub_command_types_should_be_loaded_when_selected_only() throws Exception
+	{
+		Set<String> loaded = classesLoadedBy("parseLazySubCommand");
+
+		assertThat(loaded, hasItem(LAZY_SUB_OPTIONS));
+		assertThat(loaded, not(hasItem(LazySubCommandTest.DeployOptions.class.getName())));
+	}
+
+	/**
+	 * @return the non-permitted Guava classes loaded by the given scenario
+	 */
+	private static Set<String> guavaClassesLoadedBy(String scenario) throws Exception
+	{
+		Set<String> guavaClasses = new LinkedHashSet<String>();
+		for (String name : classesLoadedBy(scenario))
+			if (name.startsWith("com.google.") && !PERMITTED_GUAVA_CLASSES.contains(name))
+				guavaClasses.add(name);
+		return guavaClasses;
+	}
+
+	/**
+	 * @return the names of the classes loaded by the given scenario
+	 */
+	private static Set<String> classesLoadedBy(String scenario) throws Exception
+	{
+		RecordingClassLoader loader = new RecordingClassLoader();
+		try
+		{
+			Class<?> scenarios = loader.loadClass(Scenarios.class.getName());
+			loader.loaded.clear(); // only record the classes loaded by parsing
+			scenarios.getDeclaredMethod(scenario).invoke(null);
+		}
+		finally
+		{
+			loader.close();
+		}
+		return loader.loaded;
+	}
+
+	/**
+	 * loads all classes of the class path itself (rather than delegating to the application class loader) and records
+	 * their names.
+	 */
+	private static class RecordingClassLoader extends URLClassLoader
+	{
+		final Set<String>	loaded	= Collections.synchronizedSet(new LinkedHashSet<String>());
+
+		RecordingClassLoader() throws Exception
+		{
+			super(classPath(), ClassLoader.getSystemClassLoader().getParent());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+		{
+			loaded.add(name);
+			return super.loadClass(name, resolve);
+		}
+
+		private static URL[] classPath() throws Exception
+		{
+			List<URL> urls = new ArrayList<URL>();
+			for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+				urls.add(new File(entry).toURI().toURL());
+			return urls.toArray(new URL[urls.size()]);
+		}
+	}
+
+	/**
+	 * the parsing scenarios, run within a {@link RecordingClassLoader}.
+	 */
+	public static class Scenarios
+	{
+		public static void parseOptions() throws Exception
+		{
+			ParsingResult<Options> result = CliParser.createCliParser(new ByteArrayOutputStream()).parse(
+					new Options(), "--name", "x", "-v", "--count=3", "--files", "a", "b", "--", "op");
+			check(result.status() == Status.SUCCESS && result.options().count == 3);
+		}
+
+		public static void parseSubCommand() throws Exception
+		{
+			ParsingResult<Options> result = CliParser.createCliParser(new ByteArrayOutputStream()).parse(
+					new Options(), "-v", "sub", "--level", "1", "op");
+			check(result.status() == Status.SUCCESS && result.operandList().size() == 1);
+		}
+
+		public static void printHelp() throws Exception
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ParsingResult<Options> result = CliParser.createCliParser(out).parse(new Options(), "--help");
+			check(result.status() == Status.HELP && out.size() > 0);
+		}
+
+		public static void reportMissingOption() throws Exception
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ParsingResult<Options> result = CliParser.createCliParser(out).parse(new Options(), "-v", "sub");
+			check(result.status() == Status.ERROR && out.size() > 0);
+		}
+
+		public static void printLazyHelp() throws Exception
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ParsingResult<LazyOptions> result = CliParser.createCliParser(out).parse(new LazyOptions(), "--help");
+			check(result.status() == Status.HELP && out.toString().contains("deploy"));
+		}
+
+		public static void parseLazySubCommand() throws Exception
+		{
+			ParsingResult<LazyOptions> result = CliParser.createCliParser(new ByteArrayOutputStream()).parse(
+					new LazyOptions(), "lazy", "--level", "1");
+			check(result.status() == Status.SUCCESS);
+		}
+
+		private static void check(boolean condition)
+		{
+			if (!condition)
+				throw new AssertionError("unexpected parsing result");
+		}
+	}
+
+	public static class Options
+	{
+		@Option
+		String		name;
+
+		@Option(shortOption = 'v')
+		boolean		verbose;
+
+		@Option(converter = Converters.IntegerValue.class)
+		int			count;
+
+		@Option
+		String[]	files;
+
+		@HelpOption
+		Object		help;
+
+		@Command(name = "sub")
+		SubOptions	sub;
+	}
+
+	public static class SubOptions
+	{
+		@Option(required = "true", converter = Converters.IntegerValue.class)
+		int	level;
+	}
+
+	public static class LazyOptions
+	{
+		@HelpOption
+		Object	help;
+
+		@Command(name = "lazy", typeName = LAZY_SUB_OPTIONS)
+		Object	lazy;
+
+		@SubCommands("plugins")
+		Object	plugin;
+	}
+
+	public static class LazySubOptions
+	{
+		@Option(converter = Converters.IntegerValue.class)
+		int	level;
+	}
+}
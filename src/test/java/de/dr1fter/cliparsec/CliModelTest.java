@@ -0,0 +1,112 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class CliModelTest
+{
+	CliParser	examinee	= CliParser.createCliParser();
+
+	@Test
+	public void model_should_be_built_once_per_type() throws Exception
+	{
+		examinee.parse(new Options(), "--option1", "a");
+		ModelCacheStatistics before = CliParser.modelCacheStatistics();
+
+		examinee.parse(new Options(), "--option1", "b");
+		examinee.parse(new Options(), "-x");
+		ModelCacheStatistics after = CliParser.modelCacheStatistics();
+
+		assertThat(after.builds(), is(before.builds()));
+		assertThat(after.hits(), greaterThan(before.hits()));
+		assertThat(CliModel.of(Options.class), sameInstance(CliModel.of(Options.class)));
+	}
+
+	@Test
+	public void prepared_model_should_be_reused_by_parsing() throws Exception
+	{
+		CliParser.prepare(PreparedOptions.class);
+		ModelCacheStatistics before = CliParser.modelCacheStatistics();
+
+		examinee.parse(new PreparedOptions(), "--option1", "a");
+
+		assertThat(CliParser.modelCacheStatistics().builds(), is(before.builds()));
+	}
+
+	@Test
+	public void model_should_contain_all_annotated_fields_exactly_once() throws Exception
+	{
+		CliModel model = CliModel.of(ExtendedOptions.class);
+
+		assertThat(model.options.size(), is(3));
+		assertThat(model.helpOptions.size(), is(1));
+		assertThat(model.commands.size(), is(1));
+	}
+
+	@Test
+	public void option_names_should_be_resolved() throws Exception
+	{
+		CliModel model = CliModel.of(Options.class);
+
+		assertThat(model.options.get(0).longOption, is("option1"));
+		assertThat(model.options.get(0).hasShortOption(), is(false));
+		assertThat(model.options.get(1).longOption, is("x"));
+		assertThat(model.options.get(1).shortOption, is('x'));
+		assertThat(model.options.get(1).formalArgCount(), is(0));
+	}
+
+	@Test
+	public void options_should_be_indexed_by_long_option_and_field_name() throws Exception
+	{
+		CliModel model = CliModel.of(RenamedOptions.class);
+
+		assertThat(model.optionsByLongOption.get("renamed").field.getName(), is("option1"));
+		assertThat(model.optionsByFieldName.get("option1").longOption, is("renamed"));
+		assertThat(model.optionsByLongOption.containsKey("option1"), is(false));
+		assertThat(model.helpOptionsByLongOption.containsKey("help"), is(true));
+	}
+
+	static class Options
+	{
+		@Option
+		String	option1;
+
+		@Option
+		boolean	x;
+	}
+
+	static class ExtendedOptions extends Options
+	{
+		@Option
+		public String	publicOption;
+
+		@HelpOption
+		Object			help;
+
+		@Command(name = "cmd")
+		Options			cmd;
+	}
+
+	static class PreparedOptions
+	{
+		@Option
+		String	option1;
+	}
+
+	static class RenamedOptions
+	{
+		@Option(longOption = "renamed")
+		String	option1;
+
+		@HelpOption
+		Object	help;
+	}
+}
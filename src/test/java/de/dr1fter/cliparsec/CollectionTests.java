@@ -1,7 +1,9 @@
 package de.dr1fter.cliparsec;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 import java.util.List;
@@ -26,6 +28,41 @@ public class CollectionTests
 		assertThat(opts.args, contains("a", "b", "c", "d", "e"));
 	}
 	
+	@Test
+	public void args_should_be_appended_to_arrays() throws Exception
+	{
+		OptionsWithArrays opts = new OptionsWithArrays();
+
+		examinee.parse(opts, "--strings", "b", "c", "--numbers", "1", "2", "--strings", "d", "--numbers", "3");
+
+		assertThat(asList(opts.strings), contains("a", "b", "c", "d"));
+		assertThat(opts.numbers, is(new int[] { 1, 2, 3 }));
+	}
+
+	@Test
+	public void many_args_should_be_assigned_to_array() throws Exception
+	{
+		OptionsWithArrays opts = new OptionsWithArrays();
+		String[] args = new String[10001];
+		args[0] = "--numbers";
+		for (int i = 1; i < args.length; i++)
+			args[i] = String.valueOf(i);
+
+		examinee.parse(opts, args);
+
+		assertThat(opts.numbers.length, is(10000));
+		assertThat(opts.numbers[9999], is(10000));
+	}
+
+	private class OptionsWithArrays
+	{
+		@Option
+		String[]	strings	= { "a" };
+
+		@Option(converter = Converters.IntegerValue.class)
+		int[]		numbers;
+	}
+
 	private class OptionsWithList
 	{
 		@Option()
@@ -0,0 +1,192 @@
+package de.dr1fter.cliparsec;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class ConcurrentParsingTest
+{
+	private static final int		THREADS		= 8;
+	private static final int		ITERATIONS	= 2000;
+
+	ByteArrayOutputStream			out			= new ByteArrayOutputStream();
+	CliParser						examinee	= CliParser.createCliParser(out);
+
+	@Test
+	public void a_parser_should_be_usable_by_concurrent_threads() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<Void>> results = newArrayList();
+		try
+		{
+			for (int t = 0; t < THREADS; t++)
+			{
+				final int thread = t;
+				results.add(executor.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call() throws Exception
+					{
+						start.await();
+						for (int i = 0; i < ITERATIONS; i++)
+							parseAndVerify(thread + "-" + i, i % 3);
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<Void> result : results)
+				result.get();
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		// error messages written to the shared stream must not be interleaved
+		String[] lines = out.toString().split("\n");
+		assertThat(lines.length, is(THREADS * ((ITERATIONS + 2) / 3)));
+		for (String line : lines)
+			assertThat(line, equalTo("ERROR: the following arguments are required but were not present: --required"));
+	}
+
+	@Test
+	public void a_blocking_sink_should_not_stall_other_invocations() throws Exception
+	{
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch unblock = new CountDownLatch(1);
+		final OutputStream blockingSink = new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len)
+			{
+				writing.countDown();
+				try
+				{
+					unblock.await(); // e.g. a socket whose peer stopped reading
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+		// daemon threads, so that a stalled invocation does not keep the JVM alive
+		ExecutorService executor = Executors.newFixedThreadPool(2,
+				new ThreadFactoryBuilder().setDaemon(true).build());
+		try
+		{
+			Future<ParsingResult<Options>> blocked = executor.submit(parseHelp(blockingSink));
+			assertThat(writing.await(10, TimeUnit.SECONDS), is(true));
+
+			ParsingResult<Options> help = executor.submit(parseHelp(sink)).get(10, TimeUnit.SECONDS);
+			assertThat(help.status(), is(Status.HELP));
+			assertThat(sink.toString(), startsWith("Options:\n"));
+
+			unblock.countDown();
+			assertThat(blocked.get(10, TimeUnit.SECONDS).status(), is(Status.HELP));
+		}
+		finally
+		{
+			unblock.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private Callable<ParsingResult<Options>> parseHelp(final OutputStream sink)
+	{
+		return new Callable<ParsingResult<Options>>()
+		{
+			@Override
+			public ParsingResult<Options> call() throws Exception
+			{
+				return examinee.parse(new Options(), sink, "-h");
+			}
+		};
+	}
+
+	private void parseAndVerify(String value, int scenario) throws Exception
+	{
+		Options opts = new Options();
+		switch (scenario)
+		{
+		case 0: // missing required option (reported to the parser's stream)
+			ParsingResult<Options> error = examinee.parse(opts, "--name", value);
+			assertThat(error.status(), is(Status.ERROR));
+			assertThat(opts.name, equalTo(value));
+			break;
+		case 1: // help (reported to a per-call sink)
+			ByteArrayOutputStream sink = new ByteArrayOutputStream();
+			ParsingResult<Options> help = examinee.parse(opts, sink, "--required", "-h");
+			assertThat(help.status(), is(Status.HELP));
+			assertThat(sink.toString(), startsWith("Options:\n"));
+			break;
+		default:
+			ParsingResult<Options> result = examinee.parse(opts, "--required", "--values", value, "a", "--name="
+					+ value, "sub", "--values", value, "--", value);
+			assertThat(result.status(), is(Status.SUCCESS));
+			assertThat(opts.name, equalTo(value));
+			assertThat(opts.values, arrayContaining(value, "a"));
+			assertThat(opts.sub.values, arrayContaining(value));
+			assertThat(result.operandList(), contains(value));
+			assertThat(result.selectedCommand().get().commandName(), equalTo("sub"));
+		}
+	}
+
+	static class Options
+	{
+		@Option
+		String		name;
+
+		@Option
+		String[]	values;
+
+		@Option(required = "true")
+		boolean		required;
+
+		@HelpOption(shortOption = 'h')
+		Object		help;
+
+		@Command(name = "sub")
+		SubOptions	sub;
+	}
+
+	static class SubOptions
+	{
+		@Option
+		String[]	values;
+	}
+}
@@ -1,8 +1,10 @@
 package de.dr1fter.cliparsec;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.*;
 
 import java.io.ByteArrayOutputStream;
@@ -94,6 +96,83 @@ public class HelpOptionTest
 		assertThat(outputStr(), containsString("subsuboption1"));
 	}
 
+	@Test
+	public void help_should_be_printed_without_binding_other_options() throws Exception
+	{
+		parse("--option1", "x", "-f", "--haalp!");
+
+		assertResultStatus_is_HELP();
+		assertThat(result.options().option1, is(nullValue()));
+		assertThat(result.options().flagOption1, is(false));
+	}
+
+	@Test
+	public void help_should_be_printed_even_if_option_values_are_invalid() throws Exception
+	{
+		parse("--intOption1", "not-a-number", "-X");
+
+		assertResultStatus_is_HELP();
+	}
+
+	@Test
+	public void help_option_consumed_as_option_value_should_not_print_help() throws Exception
+	{
+		parse("--option1", "--haalp!");
+
+		assertThat(result.status(), is(ParsingResult.Status.SUCCESS));
+		assertThat(result.options().option1, is("--haalp!"));
+		assertThat(outputStr(), is(""));
+	}
+
+	@Test
+	public void help_option_followed_by_operands_should_not_print_help() throws Exception
+	{
+		parse("--haalp!", "operand");
+
+		assertThat(result.status(), is(ParsingResult.Status.SUCCESS));
+		assertThat(result.operandList(), contains("operand"));
+	}
+
+	@Test
+	public void help_option_after_option_operand_delimiter_should_not_print_help() throws Exception
+	{
+		parse("--", "--haalp!");
+
+		assertThat(result.status(), is(ParsingResult.Status.SUCCESS));
+		assertThat(result.operandList(), contains("--haalp!"));
+		assertThat(outputStr(), is(""));
+	}
+
+	@Test
+	public void help_option_after_operands_should_not_print_help() throws Exception
+	{
+		parse("operand", "--haalp!");
+
+		assertThat(result.status(), is(ParsingResult.Status.SUCCESS));
+		assertThat(result.operandList(), contains("operand", "--haalp!"));
+	}
+
+	@Test
+	public void help_should_be_printed_after_list_option_values() throws Exception
+	{
+		parse("--listOption1", "a", "b", "-X");
+
+		assertResultStatus_is_HELP();
+		assertThat(result.options().listOption1, is(nullValue()));
+	}
+
+	@Test
+	public void help_should_be_printed_alike_upon_each_request() throws Exception
+	{
+		parse("--haalp!");
+		String firstHelp = outputStr();
+		out.reset();
+
+		parse("--option1", "x", "-X");
+
+		assertThat(outputStr(), is(firstHelp));
+	}
+
 	private void parse(String... parseArgs) throws Exception
 	{
 		result = examinee.parse(new OptionsWithHelpOption(), parseArgs);
@@ -111,6 +190,9 @@ public class HelpOptionTest
 		@Option(description="description of flagOption1")
 		private boolean	flagOption1;
 
+		@Option(converter = Converters.IntegerValue.class)
+		private int		intOption1;
+
 		@Option(description="description of listOption1")
 		private List<String> listOption1;
 
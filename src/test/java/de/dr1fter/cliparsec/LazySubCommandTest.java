@@ -0,0 +1,218 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.annotations.SubCommands;
+
+public class LazySubCommandTest
+{
+	@Rule
+	public ExpectedException	expected	= ExpectedException.none();
+
+	ByteArrayOutputStream		out			= new ByteArrayOutputStream();
+	CliParser					examinee	= CliParser.createCliParser(out);
+	Options						options		= new Options();
+
+	@Test
+	public void sub_command_given_by_type_name_should_be_parsed() throws Exception
+	{
+		ParsingResult<Options> result = examinee.parse(options, "status", "--verbose");
+
+		assertThat(result.status(), is(Status.SUCCESS));
+		assertThat(options.status, instanceOf(StatusOptions.class));
+		assertThat(((StatusOptions) options.status).verbose, is(true));
+	}
+
+	@Test
+	public void registered_sub_command_should_be_parsed() throws Exception
+	{
+		ParsingResult<Options> result = examinee.parse(options, "deploy", "--target", "prod");
+
+		assertThat(result.status(), is(Status.SUCCESS));
+		assertThat(result.selectedCommand().get().commandName(), is("deploy"));
+		assertThat(((DeployOptions) options.plugin).target, is("prod"));
+	}
+
+	@Test
+	public void existing_sub_command_object_of_another_type_should_be_replaced() throws Exception
+	{
+		DeployOptions deploy = new DeployOptions();
+		options.plugin = deploy;
+
+		examinee.parse(options, "deploy");
+		assertThat(options.plugin, sameInstance((Object) deploy));
+
+		examinee.parse(options, "undeploy", "--force");
+		assertThat(options.plugin, instanceOf(UndeployOptions.class));
+	}
+
+	@Test
+	public void help_should_list_all_sub_commands() throws Exception
+	{
+		examinee.parse(options, "--help");
+
+		assertThat(out.toString(), containsString("status\n"));
+		assertThat(out.toString(), containsString("deploy\n"));
+		assertThat(out.toString(), containsString("undeploy\n"));
+		assertThat(out.toString(), containsString("broken\n"));
+	}
+
+	@Test
+	public void unknown_sub_command_type_should_fail_upon_selection() throws Exception
+	{
+		expected.expectMessage("failed to load the options type of sub-command 'broken'");
+
+		examinee.parse(options, "broken");
+	}
+
+	@Test
+	public void sub_command_type_not_assignable_to_the_field_should_fail_upon_selection() throws Exception
+	{
+		expected.expectMessage("cannot be assigned to");
+
+		examinee.parse(new OptionsWithTypedField(), "deploy");
+	}
+
+	@Test
+	public void command_should_take_precedence_over_equally_named_registered_sub_command() throws Exception
+	{
+		OptionsWithClash clash = new OptionsWithClash();
+
+		examinee.parse(clash, "deploy", "--local");
+
+		assertThat(clash.deploy.local, is(true));
+		assertThat(clash.plugin, is(nullValue()));
+	}
+
+	@Test
+	public void help_should_list_clashing_sub_commands_once() throws Exception
+	{
+		examinee.parse(new OptionsWithClash(), "--help");
+
+		int deployLines = 0;
+		for (String line : out.toString().split("\n"))
+			if (line.trim().equals("deploy"))
+				deployLines++;
+		assertThat(deployLines, is(1));
+		assertThat(out.toString(), containsString("undeploy\n"));
+	}
+
+	@Test
+	public void sub_command_that_cannot_be_instantiated_should_fail_upon_selection() throws Exception
+	{
+		expected.expectMessage("failed to initialise sub-command 'create'");
+
+		examinee.parse(new OptionsWithoutInstantiableCommand(), "create");
+	}
+
+	/**
+	 * refers to the options types by name only (class literals would load them).
+	 */
+	public static class Registry implements SubCommandRegistry
+	{
+		@Override
+		public Map<String, String> subCommands(String group)
+		{
+			if (!group.equals("plugins"))
+				return Collections.emptyMap();
+
+			Map<String, String> subCommands = new HashMap<String, String>();
+			subCommands.put("deploy", "de.dr1fter.cliparsec.LazySubCommandTest$DeployOptions");
+			subCommands.put("undeploy", "de.dr1fter.cliparsec.LazySubCommandTest$UndeployOptions");
+			subCommands.put("broken", "de.dr1fter.cliparsec.DoesNotExist");
+			return subCommands;
+		}
+	}
+
+	static class Options
+	{
+		@HelpOption
+		Object	help;
+
+		@Command(name = "status", typeName = "de.dr1fter.cliparsec.LazySubCommandTest$StatusOptions")
+		Object	status;
+
+		@SubCommands("plugins")
+		Object	plugin;
+	}
+
+	static class OptionsWithTypedField
+	{
+		@SubCommands("plugins")
+		StatusOptions	plugin;
+	}
+
+	/**
+	 * declares the registered sub-commands before the equally named command.
+	 */
+	static class OptionsWithClash
+	{
+		@HelpOption
+		Object					help;
+
+		@SubCommands("plugins")
+		Object					plugin;
+
+		@Command(name = "deploy")
+		LocalDeployOptions		deploy;
+	}
+
+	static class OptionsWithoutInstantiableCommand
+	{
+		@Command(name = "create")
+		CreateOptions	create;
+	}
+
+	static class StatusOptions
+	{
+		@Option
+		boolean	verbose;
+	}
+
+	static class DeployOptions
+	{
+		@Option
+		String	target;
+	}
+
+	static class LocalDeployOptions
+	{
+		@Option
+		boolean	local;
+	}
+
+	static class CreateOptions
+	{
+		@Option
+		String	name;
+
+		CreateOptions(String name)
+		{
+			this.name = name;
+		}
+	}
+
+	static class UndeployOptions
+	{
+		@Option
+		boolean	force;
+	}
+}
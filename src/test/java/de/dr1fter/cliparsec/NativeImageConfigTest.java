@@ -0,0 +1,195 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class NativeImageConfigTest
+{
+	@Rule
+	public TemporaryFolder	tmpDir	= new TemporaryFolder();
+
+	@Test
+	public void options_types_and_their_supertypes_should_be_registered() throws Exception
+	{
+		String config = NativeImageConfig.reflectConfig(SampleOptions.class);
+
+		assertThat(config, containsString(entry(SampleOptions.class, "allDeclaredFields", "allDeclaredConstructors")));
+		assertThat(config, containsString(entry(BaseOptions.class, "allDeclaredFields")));
+	}
+
+	@Test
+	public void sub_command_types_should_be_registered_recursively() throws Exception
+	{
+		String config = NativeImageConfig.reflectConfig(SampleOptions.class);
+
+		assertThat(config, containsString(entry(Sub.class, "allDeclaredFields", "allDeclaredConstructors")));
+		assertThat(config, containsString(entry(NestedSub.class, "allDeclaredFields", "allDeclaredConstructors")));
+	}
+
+	@Test
+	public void lazy_sub_command_types_should_be_registered() throws Exception
+	{
+		String config = NativeImageConfig.reflectConfig(LazyOptions.class);
+
+		assertThat(config, containsString(entry(NestedSub.class, "allDeclaredFields", "allDeclaredConstructors")));
+	}
+
+	@Test
+	public void converters_should_be_registered_for_instantiation() throws Exception
+	{
+		String config = NativeImageConfig.reflectConfig(SampleOptions.class);
+
+		assertThat(config, containsString(entry(Converters.Identity.class, "allDeclaredConstructors")));
+		assertThat(config, containsString(entry(Converters.IntegerValue.class, "allDeclaredConstructors")));
+		assertThat(config, not(containsString(Converters.FileOrDirectory.class.getName())));
+	}
+
+	@Test
+	public void final_fields_should_be_registered_as_writable() throws Exception
+	{
+		String config = NativeImageConfig.reflectConfig(SampleOptions.class);
+
+		assertThat(config, containsString("{ \"name\": \"names\", \"allowWrite\": true }"));
+		assertThat(config, not(containsString("{ \"name\": \"count\"")));
+	}
+
+	@Test
+	public void config_should_be_written_to_the_given_directory() throws Exception
+	{
+		File dir = new File(tmpDir.getRoot(), "META-INF/native-image/sample");
+
+		File file = NativeImageConfig.writeReflectConfig(dir, SampleOptions.class);
+
+		assertThat(file, equalTo(new File(dir, NativeImageConfig.FILE_NAME)));
+		assertThat(Files.toString(file, Charsets.UTF_8), equalTo(NativeImageConfig.reflectConfig(SampleOptions.class)));
+	}
+
+	/**
+	 * builds the {@link SampleCli} as native executable (using the generated configuration only) and runs it. Requires
+	 * GraalVM's native-image (found via GRAALVM_HOME or the PATH) on Linux - skipped otherwise.
+	 */
+	@Test
+	public void sample_cli_should_run_as_native_executable() throws Exception
+	{
+		File nativeImage = nativeImageTool();
+		assumeTrue(System.getProperty("os.name").startsWith("Linux") && nativeImage != null);
+
+		File configRoot = tmpDir.newFolder("config");
+		NativeImageConfig.writeReflectConfig(new File(configRoot, "META-INF/native-image/sample"), SampleOptions.class);
+		File executable = new File(tmpDir.getRoot(), "sample-cli");
+
+		run(nativeImage.getPath(), "--no-fallback", "-cp",
+				System.getProperty("java.class.path") + File.pathSeparator + configRoot, "-o", executable.getPath(),
+				SampleCli.class.getName());
+		String output = run(executable.getPath(), "--count", "3", "sub", "-f", "nested", "--level=2", "op");
+
+		assertThat(output, equalTo("count=3 sub.flag=true nested.level=2 operands=[op]\n"));
+	}
+
+	private static String entry(Class<?> type, String... flags)
+	{
+		StringBuilder s = new StringBuilder("\"name\": \"").append(type.getName()).append('"');
+		for (String flag : flags)
+			s.append(",\n    \"").append(flag).append("\": true");
+		return s.toString();
+	}
+
+	private static File nativeImageTool()
+	{
+		List<String> dirs = Arrays.asList(System.getenv("GRAALVM_HOME") + "/bin", System.getenv("JAVA_HOME")
+				+ "/bin");
+		for (String dir : dirs)
+			if (new File(dir, "native-image").canExecute())
+				return new File(dir, "native-image");
+		for (String dir : String.valueOf(System.getenv("PATH")).split(File.pathSeparator))
+			if (new File(dir, "native-image").canExecute())
+				return new File(dir, "native-image");
+		return null;
+	}
+
+	private static String run(String... command) throws Exception
+	{
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		String output = new String(ByteStreams.toByteArray(process.getInputStream()), Charsets.UTF_8);
+		assertThat(output, process.waitFor(), is(0));
+		return output;
+	}
+
+	/**
+	 * the sample command line interface built as native executable.
+	 */
+	public static class SampleCli
+	{
+		public static void main(String[] args) throws Exception
+		{
+			SampleOptions options = new SampleOptions();
+			ParsingResult<SampleOptions> result = CliParser.createCliParser().parse(options, args);
+			System.out.println("count=" + options.count + " sub.flag=" + options.sub.flag + " nested.level="
+					+ options.sub.nested.level + " operands=" + result.operandList());
+		}
+	}
+
+	static class BaseOptions
+	{
+		@HelpOption
+		Object	help;
+	}
+
+	static class SampleOptions extends BaseOptions
+	{
+		@Option(converter = Converters.IntegerValue.class)
+		int					count;
+
+		@Option
+		final List<String>	names	= new ArrayList<String>();
+
+		@Command(name = "sub")
+		Sub					sub;
+	}
+
+	static class Sub
+	{
+		@Option(shortOption = 'f')
+		boolean		flag;
+
+		@Command(name = "nested")
+		NestedSub	nested;
+	}
+
+	static class LazyOptions
+	{
+		@Command(name = "nested", typeName = "de.dr1fter.cliparsec.NativeImageConfigTest$NestedSub")
+		Object	nested;
+	}
+
+	static class NestedSub
+	{
+		@Option(converter = Converters.IntegerValue.class)
+		int				level;
+
+		/** refers back to the root (must not be visited twice) */
+		@Command(name = "root")
+		SampleOptions	root;
+	}
+}
@@ -8,11 +8,14 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
 
 import org.junit.Test;
 
+import com.google.common.base.Function;
+
 import de.dr1fter.cliparsec.ParsingResult.Status;
 import de.dr1fter.cliparsec.annotations.Option;
 
@@ -61,6 +64,20 @@ public class OptionsParserTest
 		assertThat(opts.shortOpt4, equalTo("four"));
 	}
 	
+	@Test
+	public void attached_args_should_not_modify_the_passed_args() throws Exception
+	{
+		OptionsWithArgs opts = new OptionsWithArgs();
+		String[] args = { "--arr=a", "b", "--option=opt1", "operand" };
+
+		ParsingResult<OptionsWithArgs> result = examinee.parse(opts, args);
+
+		assertThat(opts.arr, equalTo(new String[]{"a", "b"}));
+		assertThat(opts.option1, equalTo("opt1"));
+		assertThat(result.operands(), equalTo(new String[]{"operand"}));
+		assertThat(args, equalTo(new String[]{ "--arr=a", "b", "--option=opt1", "operand" }));
+	}
+
 	@Test
 	public void global_options_without_args_should_be_parsed() throws Exception
 	{
@@ -75,6 +92,18 @@ public class OptionsParserTest
 	}	
 	
 	
+	@Test
+	public void grouped_short_options_should_be_parsed_with_non_ascii_characters() throws Exception
+	{
+		OptionsWithNonAsciiShortOptions opts = new OptionsWithNonAsciiShortOptions();
+
+		examinee.parse(opts, "-x\u00e4f", "archive");
+
+		assertThat(opts.extract, is(true));
+		assertThat(opts.umlaut, is(true));
+		assertThat(opts.file, is("archive"));
+	}
+
 	@Test
 	public void parameters_after_operand_delimiter_should_not_be_parsed() throws Exception
 	{
@@ -133,6 +162,55 @@ public class OptionsParserTest
 		assertThat(outputStr(),not(containsString("--req2")));//req2 needs not be present because optOption1 is present
 	}
 
+	@Test
+	public void consecutive_parsing_runs_should_not_share_state() throws Exception
+	{
+		examinee.parse(new OptionsWithArgs(), "--arr", "a", "--arr", "b", "--arr", "c", "--arr", "d");
+		try
+		{
+			examinee.parse(new OptionsWithArgs(), "--arr", "x", "--optionX");
+			fail("unknown option should be rejected");
+		}
+		catch (RuntimeException e)
+		{
+			assertThat(e.getMessage(), containsString("unexpected token: --optionX."));
+		}
+
+		OptionsWithArgs opts = new OptionsWithArgs();
+		examinee.parse(opts, "--arr", "e", "--arr", "f", "--arr", "g", "--arr", "h", "--option=o");
+
+		assertThat(opts.arr, arrayContaining("e", "f", "g", "h"));
+		assertThat(opts.option1, equalTo("o"));
+	}
+
+	@Test
+	public void parsing_should_be_reentrant() throws Exception
+	{
+		OptionsWithNestedParsing opts = new OptionsWithNestedParsing();
+
+		examinee.parse(opts, "--nested", "--option=inner", "--arr", "outer");
+
+		assertThat(opts.nested.option1, equalTo("inner"));
+		assertThat(opts.nested.arr, arrayContaining("inner"));
+		assertThat(opts.arr, arrayContaining("outer"));
+	}
+
+	@Test
+	public void static_option_fields_should_be_parsed() throws Exception
+	{
+		OptionsWithStaticField.name = null;
+
+		examinee.parse(new OptionsWithStaticField(), "--name", "x");
+
+		assertThat(OptionsWithStaticField.name, equalTo("x"));
+	}
+
+	private static class OptionsWithStaticField
+	{
+		@Option
+		static String	name;
+	}
+
 	private static class OptionsWithoutArgs
 	{
 		@Option(longOption="option1",shortOption='1', argCount=0)
@@ -148,6 +226,18 @@ public class OptionsParserTest
 		public boolean option4;
 	}
 
+	private static class OptionsWithNonAsciiShortOptions
+	{
+		@Option(shortOption='x')
+		boolean extract;
+
+		@Option(shortOption='\u00e4')
+		boolean umlaut;
+
+		@Option(shortOption='f')
+		String file;
+	}
+
 	private static class OptionsWithArgs
 	{
 		@Option(longOption="option",shortOption='o')
@@ -199,4 +289,29 @@ public class OptionsParserTest
 		@Option(required="!present(optOption1)&!present(optOption2)")
 		boolean req2;
 	}
+
+	/** parses the same options type from within a parsing run */
+	public static class ParsingConverter implements Function<String, OptionsWithNestedParsing>
+	{
+		@Override
+		public OptionsWithNestedParsing apply(String input)
+		{
+			OptionsWithNestedParsing nested = new OptionsWithNestedParsing();
+			try
+			{
+				CliParser.createCliParser().parse(nested, input, "--arr", "inner");
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+			return nested;
+		}
+	}
+
+	private static class OptionsWithNestedParsing extends OptionsWithArgs
+	{
+		@Option(converter = ParsingConverter.class)
+		OptionsWithNestedParsing	nested;
+	}
 }
@@ -0,0 +1,157 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class ParseListenerTest
+{
+	RecordingListener	listener	= new RecordingListener();
+	CliParser			parser		= CliParser.createCliParser(new ByteArrayOutputStream()).withListener(listener);
+
+	@Test
+	public void phases_should_be_reported_per_command_level() throws Exception
+	{
+		ParsingResult<Options> result = parser.parse(new Options(), "-v", "sub", "--level", "1", "op");
+
+		assertThat(result.status(), is(Status.SUCCESS));
+		assertThat(listener.events, contains(
+				"modelResolved Options",
+				"tokenised Options",
+				"optionsResolved Options",
+				"requiredEvaluated Options",
+				"subCommandEntered Options sub",
+				"modelResolved SubOptions",
+				"tokenised SubOptions",
+				"optionsResolved SubOptions",
+				"valuesConverted SubOptions level IntegerValue 1",
+				"requiredEvaluated SubOptions"));
+		assertThat(listener.nanos, everyItem(greaterThanOrEqualTo(0L)));
+	}
+
+	@Test
+	public void conversions_should_be_reported_once_per_option() throws Exception
+	{
+		parser.parse(new Options(), "--files", "a", "b", "--files", "c", "--count=3");
+
+		assertThat(listener.events, hasItem("valuesConverted Options count IntegerValue 1"));
+		assertThat(listener.events, hasItem("valuesConverted Options files Identity 3"));
+		assertThat(listener.events, not(hasItem("valuesConverted Options verbose Identity 0")));
+	}
+
+	@Test
+	public void help_should_be_reported() throws Exception
+	{
+		ParsingResult<Options> result = parser.parse(new Options(), "--help");
+
+		assertThat(result.status(), is(Status.HELP));
+		assertThat(listener.events, hasItem("helpRendered Options"));
+		assertThat(listener.events, not(hasItem("requiredEvaluated Options")));
+	}
+
+	@Test
+	public void the_original_parser_should_not_report_to_the_listener() throws Exception
+	{
+		CliParser original = CliParser.createCliParser(new ByteArrayOutputStream());
+		original.withListener(listener);
+
+		original.parse(new Options(), "--count=3");
+
+		assertThat(listener.events.isEmpty(), is(true));
+	}
+
+	static class RecordingListener extends ParseListener
+	{
+		final List<String>	events	= new ArrayList<String>();
+		final List<Long>	nanos	= new ArrayList<Long>();
+
+		@Override
+		public void modelResolved(Class<?> optionsType, long nanos)
+		{
+			record("modelResolved " + optionsType.getSimpleName(), nanos);
+		}
+
+		@Override
+		public void tokenised(Class<?> optionsType, long nanos)
+		{
+			record("tokenised " + optionsType.getSimpleName(), nanos);
+		}
+
+		@Override
+		public void optionsResolved(Class<?> optionsType, long nanos)
+		{
+			record("optionsResolved " + optionsType.getSimpleName(), nanos);
+		}
+
+		@Override
+		public void valuesConverted(Class<?> optionsType, String longOption, Class<?> converterType, int valueCount,
+				long nanos)
+		{
+			record("valuesConverted " + optionsType.getSimpleName() + " " + longOption + " "
+					+ converterType.getSimpleName() + " " + valueCount, nanos);
+		}
+
+		@Override
+		public void requiredEvaluated(Class<?> optionsType, long nanos)
+		{
+			record("requiredEvaluated " + optionsType.getSimpleName(), nanos);
+		}
+
+		@Override
+		public void subCommandEntered(Class<?> optionsType, String command, long nanos)
+		{
+			record("subCommandEntered " + optionsType.getSimpleName() + " " + command, nanos);
+		}
+
+		@Override
+		public void helpRendered(Class<?> optionsType, long nanos)
+		{
+			record("helpRendered " + optionsType.getSimpleName(), nanos);
+		}
+
+		private void record(String event, long nanos)
+		{
+			events.add(event);
+			this.nanos.add(nanos);
+		}
+	}
+
+	static class Options
+	{
+		@Option(shortOption = 'v')
+		boolean		verbose;
+
+		@Option(converter = Converters.IntegerValue.class)
+		int			count;
+
+		@Option
+		String[]	files;
+
+		@HelpOption
+		Object		help;
+
+		@Command(name = "sub")
+		SubOptions	sub;
+	}
+
+	static class SubOptions
+	{
+		@Option(required = "true", converter = Converters.IntegerValue.class)
+		int	level;
+	}
+}
@@ -1,71 +1,53 @@
 package de.dr1fter.cliparsec;
 
-import static com.google.common.collect.Iterables.size;
-import static de.dr1fter.cliparsec.ReflectionUtils.isPublic;
-import static org.hamcrest.Matchers.containsInAnyOrder;
+import static de.dr1fter.cliparsec.ReflectionUtils.tryToCreateInstance;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
-import java.lang.reflect.Field;
-
 import org.junit.Test;
 
-import de.dr1fter.cliparsec.ReflectionUtils;
-
 public class ReflectionUtilsTest
 {
-	/**
-	 * Embedded class must remain static - otherwise it will implicitly gain an additional member referring to 
-	 * its outer class, which will break tests that test for the returning of e.g. the proper amount of fields.
-	 * <p>
-	 * Making the type non-static will lead to having to adjust the then broken tests.
-	 */
-	static class Helper   
-	{
-		public Object _publicField = new Object();
-		Object _defaultField = new Object();
-		@SuppressWarnings("unused") //access via reflection
-		private Object _privateField = new Object();
-		protected Object _protectedField = new Object();
-	}
-	
-	private final Helper helper = new Helper();
-	
-	private Field publicField() throws Exception
+	static class StaticHelper
 	{
-		return helper.getClass().getField("_publicField");
+		private StaticHelper()
+		{
+		}
 	}
-	
-	private Field defaultField() throws Exception
+
+	class InnerHelper
 	{
-		return helper.getClass().getDeclaredField("_defaultField");
+		Object outer()
+		{
+			return ReflectionUtilsTest.this;
+		}
 	}
-	
-	private Field privateField() throws Exception
+
+	static class NoDefaultConstructor
 	{
-		return helper.getClass().getDeclaredField("_privateField");
+		NoDefaultConstructor(String s)
+		{
+		}
 	}
-	
-	private Field protectedField() throws Exception
+
+	@Test
+	public void tryToCreateInstance_should_instantiate_static_embedded_types() throws Exception
 	{
-		return helper.getClass().getDeclaredField("_protectedField");
+		assertThat(tryToCreateInstance(StaticHelper.class, this), instanceOf(StaticHelper.class));
 	}
-	
+
 	@Test
-	public void isPublic_should_return_true_iff_field_is_public() throws Exception
+	public void tryToCreateInstance_should_instantiate_inner_types_of_the_outer_object() throws Exception
 	{
-		assertThat(isPublic.apply(publicField()), is(true));
-		assertThat(isPublic.apply(privateField()), is(false));
-		assertThat(isPublic.apply(defaultField()), is(false));
-		assertThat(isPublic.apply(protectedField()), is(false));
+		InnerHelper helper = tryToCreateInstance(InnerHelper.class, this);
+		assertThat(helper.outer(), is(sameInstance((Object) this)));
 	}
-	
-	@Test
-	public void allFieldsAsAccessible_should_return_all_fields_exactly_once() throws Exception
+
+	@Test(expected = RuntimeException.class)
+	public void tryToCreateInstance_should_fail_without_a_suitable_constructor() throws Exception
 	{
-		Iterable<Field> allFieldsAsAccessible = ReflectionUtils.allFieldsAsAccessible(helper.getClass());
-		assertThat(size(allFieldsAsAccessible),is(4));
-		assertThat(allFieldsAsAccessible, 
-				containsInAnyOrder(publicField(), privateField(), defaultField(), protectedField()));
+		tryToCreateInstance(NoDefaultConstructor.class, this);
 	}
 }
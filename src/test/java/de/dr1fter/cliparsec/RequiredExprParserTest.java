@@ -0,0 +1,96 @@
+package de.dr1fter.cliparsec;
+
+import static de.dr1fter.cliparsec.RequiredExprParser.compile;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.dr1fter.cliparsec.CliModel.OptionDescriptor;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class RequiredExprParserTest
+{
+	@Rule
+	public ExpectedException					thrown		= ExpectedException.none();
+
+	private final Map<String, OptionDescriptor>	options		= CliModel.of(Options.class).optionsByFieldName;
+	private final BitSet						present		= new BitSet();
+
+	@Test
+	public void constants_should_be_evaluated() throws Exception
+	{
+		assertThat(evaluate(""), is(false));
+		assertThat(evaluate("true"), is(true));
+		assertThat(evaluate(" false "), is(false));
+		assertThat(evaluate("!false"), is(true));
+		assertThat(evaluate("!!true"), is(true));
+	}
+
+	@Test
+	public void and_should_take_precedence_over_or() throws Exception
+	{
+		assertThat(evaluate("true | false & false"), is(true));
+		assertThat(evaluate("(true | false) & false"), is(false));
+		assertThat(evaluate("!(true & false) & true"), is(true));
+	}
+
+	@Test
+	public void present_should_be_evaluated_against_present_options() throws Exception
+	{
+		present.set(options.get("a").ordinal);
+
+		assertThat(evaluate("present(a)"), is(true));
+		assertThat(evaluate("present( b )"), is(false));
+		assertThat(evaluate("present(a) & !present(b)"), is(true));
+	}
+
+	@Test
+	public void unknown_fields_should_be_reported() throws Exception
+	{
+		thrown.expect(RuntimeException.class);
+		thrown.expectMessage("no such field in args object: 'c'");
+		compile("present(c)", options);
+	}
+
+	@Test
+	public void syntax_errors_should_be_reported() throws Exception
+	{
+		thrown.expect(RuntimeException.class);
+		thrown.expectMessage("syntax error");
+		compile("(true & false", options);
+	}
+
+	@Test
+	public void invalid_expressions_should_be_reported_when_the_model_is_built() throws Exception
+	{
+		thrown.expect(RuntimeException.class);
+		thrown.expectMessage("invalid required expression");
+		CliModel.of(OptionsWithInvalidExpression.class);
+	}
+
+	private boolean evaluate(String expr)
+	{
+		return compile(expr, options).evaluate(present);
+	}
+
+	static class Options
+	{
+		@Option
+		boolean	a;
+
+		@Option
+		boolean	b;
+	}
+
+	static class OptionsWithInvalidExpression
+	{
+		@Option(required = "present(doesNotExist)")
+		boolean	a;
+	}
+}
@@ -0,0 +1,90 @@
+package de.dr1fter.cliparsec;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class ResourceAccountingTest
+{
+	CliParser	parser	= CliParser.createCliParser(new ByteArrayOutputStream());
+
+	@Test
+	public void resource_usage_should_be_absent_by_default() throws Exception
+	{
+		ParsingResult<Options> result = parser.parse(new Options(), "--names", "a");
+
+		assertThat(result.resourceUsage().isPresent(), is(false));
+	}
+
+	@Test
+	public void resource_usage_should_be_present_if_enabled() throws Exception
+	{
+		ParsingResult<Options> result = parser.withResourceAccounting().parse(new Options(), "--names", "a");
+
+		assertThat(result.resourceUsage().isPresent(), is(true));
+		assertThat(result.resourceUsage().get().cpuTimeNanos(), greaterThanOrEqualTo(-1L));
+	}
+
+	@Test
+	public void enabling_resource_accounting_should_not_change_the_original_parser() throws Exception
+	{
+		parser.withResourceAccounting();
+
+		assertThat(parser.parse(new Options(), "--names", "a").resourceUsage().isPresent(), is(false));
+	}
+
+	@Test
+	public void allocations_should_grow_with_the_amount_of_values() throws Exception
+	{
+		CliParser accountingParser = parser.withResourceAccounting();
+		long few = accountingParser.parse(new Options(), names(10)).resourceUsage().get().allocatedBytes();
+		assumeThat(few, greaterThanOrEqualTo(0L)); // only measured on HotSpot-based JVMs
+
+		long many = accountingParser.parse(new Options(), names(10000)).resourceUsage().get().allocatedBytes();
+
+		assertThat(many, greaterThan(few));
+	}
+
+	@Test
+	public void resource_usage_should_be_measured_per_batch_result() throws Exception
+	{
+		List<ParsingResult<Options>> results = parser.withResourceAccounting().parseAll(new Supplier<Options>()
+		{
+			@Override
+			public Options get()
+			{
+				return new Options();
+			}
+		}, Arrays.asList(names(1), names(2)));
+
+		for (ParsingResult<Options> result : results)
+			assertThat(result.resourceUsage().isPresent(), is(true));
+	}
+
+	private static String[] names(int count)
+	{
+		String[] args = new String[count + 1];
+		args[0] = "--names";
+		for (int i = 1; i <= count; i++)
+			args[i] = "name" + i;
+		return args;
+	}
+
+	static class Options
+	{
+		@Option
+		String[]	names;
+	}
+}
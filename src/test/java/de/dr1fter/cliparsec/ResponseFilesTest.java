@@ -0,0 +1,142 @@
+package de.dr1fter.cliparsec;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class ResponseFilesTest
+{
+	CliParser					examinee	= CliParser.createCliParser().withResponseFiles();
+
+	@Rule
+	public TemporaryFolder		tmpDir		= new TemporaryFolder();
+
+	@Rule
+	public ExpectedException	thrown		= ExpectedException.none();
+
+	@Test
+	public void args_should_be_read_from_response_file() throws Exception
+	{
+		File file = write("args", "--name\n  \"quoted \\\"name\\\"\"  \r\n\n--files\n'a b'\n c \n");
+		Options opts = new Options();
+
+		examinee.parse(opts, "@" + file.getPath(), "--flag");
+
+		assertThat(opts.name, equalTo("quoted \"name\""));
+		assertThat(opts.files, contains("a b", "c"));
+		assertThat(opts.flag, is(true));
+	}
+
+	@Test
+	public void nul_delimited_args_should_be_read_verbatim() throws Exception
+	{
+		File file = write("args", "--files\0 'a'\0b\nc\0\0");
+
+		assertThat(expand("@" + file.getPath()), contains("--files", " 'a'", "b\nc"));
+	}
+
+	@Test
+	public void nested_response_files_should_be_expanded() throws Exception
+	{
+		File inner = write("inner", "b\n@@c");
+		File outer = write("outer", "a\n@" + inner.getPath() + "\nd");
+
+		assertThat(expand("@" + outer.getPath(), "e"), contains("a", "b", "@c", "d", "e"));
+	}
+
+	@Test
+	public void cyclic_response_files_should_be_rejected() throws Exception
+	{
+		File first = new File(tmpDir.getRoot(), "first");
+		File second = write("second", "b\n@" + first.getPath());
+		write("first", "a\n@" + second.getPath());
+
+		thrown.expectMessage("cyclic response file reference");
+		expand("@" + first.getPath());
+	}
+
+	@Test
+	public void response_files_should_be_read_lazily() throws Exception
+	{
+		Iterator<String> args = ResponseFiles.expand(new String[] { "a", "@does-not-exist" });
+
+		assertThat(args.next(), equalTo("a"));
+		thrown.expectMessage("could not read response file");
+		args.next();
+	}
+
+	@Test
+	public void large_response_files_should_be_parsed() throws Exception
+	{
+		StringBuilder s = new StringBuilder("--files\n");
+		for (int i = 0; i < 100000; i++)
+			s.append("file").append(i).append('\n');
+		File file = write("args", s.toString());
+		Options opts = new Options();
+
+		ParsingResult<Options> result = examinee.parse(opts, "@" + file.getPath(), "--", "operand");
+
+		assertThat(opts.files.size(), is(100000));
+		assertThat(opts.files.get(99999), equalTo("file99999"));
+		assertThat(result.operands()[0], equalTo("operand"));
+	}
+
+	@Test
+	public void args_without_response_files_should_be_passed_unchanged() throws Exception
+	{
+		assertThat(ResponseFiles.containsResponseFiles(new String[] { "a", "@", "--b" }), is(false));
+		assertThat(expand("@@a", "@"), contains("@a", "@"));
+	}
+
+	@Test
+	public void response_files_should_not_be_expanded_by_default() throws Exception
+	{
+		Options opts = new Options();
+
+		CliParser.createCliParser().parse(opts, "--name", "@bob", "--files", "@@a", "@{upstream}");
+
+		assertThat(opts.name, equalTo("@bob"));
+		assertThat(opts.files, contains("@@a", "@{upstream}"));
+	}
+
+	private File write(String name, String contents) throws Exception
+	{
+		File file = new File(tmpDir.getRoot(), name);
+		Files.write(contents, file, Charsets.UTF_8);
+		return file;
+	}
+
+	private static List<String> expand(String... args)
+	{
+		return newArrayList(ResponseFiles.expand(args));
+	}
+
+	static class Options
+	{
+		@Option
+		String			name;
+
+		@Option
+		List<String>	files	= newArrayList();
+
+		@Option
+		boolean			flag;
+	}
+}
@@ -0,0 +1,157 @@
+package de.dr1fter.cliparsec;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.Option;
+
+public class StreamingInputTest
+{
+	CliParser					examinee	= CliParser.createCliParser();
+
+	@Rule
+	public ExpectedException	thrown		= ExpectedException.none();
+
+	@Test
+	public void operands_should_be_read_as_they_are_iterated() throws Exception
+	{
+		GeneratedArgs args = new GeneratedArgs(1000000, "--name", "n", "-v");
+		Options opts = new Options();
+
+		ParsingResult<Options> result = examinee.parse(opts, args);
+
+		assertThat(opts.name, equalTo("n"));
+		assertThat(opts.verbose, is(true));
+		assertThat(args.read, lessThan(5));
+
+		int count = 0;
+		for (Iterator<String> operands = result.operandIterator(); operands.hasNext(); operands.next())
+			count++;
+		assertThat(count, is(1000000));
+		assertThat(args.read, is(1000003));
+	}
+
+	@Test
+	public void sub_command_operands_should_be_streamed() throws Exception
+	{
+		Options opts = new Options();
+
+		ParsingResult<Options> result = examinee.parse(opts,
+				asList("-v", "sub", "--subOption=s", "a", "b").iterator());
+
+		assertThat(opts.sub.subOption, equalTo("s"));
+		assertThat(result.selectedCommand().get().commandName(), equalTo("sub"));
+		assertThat(newArrayList(result.operandIterator()), contains("a", "b"));
+	}
+
+	@Test
+	public void operands_should_be_copied_on_request() throws Exception
+	{
+		ParsingResult<Options> result = examinee.parse(new Options(), asList("--name=n", "--", "a", "b").iterator());
+
+		assertThat(result.operands(), arrayContaining("a", "b"));
+		assertThat(newArrayList(result.operandIterator()), contains("a", "b"));
+	}
+
+	@Test
+	public void streamed_operands_should_not_be_copied_afterwards() throws Exception
+	{
+		ParsingResult<Options> result = examinee.parse(new Options(), new GeneratedArgs(10, "-v"));
+		Iterator<String> operands = result.operandIterator();
+		operands.next();
+		operands.next();
+
+		thrown.expect(IllegalStateException.class);
+		result.operands();
+	}
+
+	/**
+	 * returns the given options, followed by the given amount of operands (which are generated on demand).
+	 */
+	@Test
+	public void parsers_not_overriding_iterator_parsing_should_read_all_args_up_front() throws Exception
+	{
+		final CliParser delegate = examinee;
+		CliParser external = new CliParser() // e.g. a subclass predating iterator parsing
+		{
+			@Override
+			public <T> ParsingResult<T> parse(T options, String... rawArgs) throws Exception
+			{
+				return delegate.parse(options, rawArgs);
+			}
+		};
+		GeneratedArgs args = new GeneratedArgs(3, "--name", "n");
+		Options opts = new Options();
+
+		ParsingResult<Options> result = external.parse(opts, args);
+
+		assertThat(args.read, is(5));
+		assertThat(opts.name, equalTo("n"));
+		assertThat(result.operandList().size(), is(3));
+	}
+
+	static class GeneratedArgs implements Iterator<String>
+	{
+		private final String[]	options;
+		private final int		total;
+		int						read;
+
+		GeneratedArgs(int operandCount, String... options)
+		{
+			this.options = options;
+			this.total = options.length + operandCount;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return read < total;
+		}
+
+		@Override
+		public String next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return read < options.length ? options[read++] : "operand" + read++;
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static class Options
+	{
+		@Option
+		String	name;
+
+		@Option(shortOption = 'v')
+		boolean	verbose;
+
+		@Command(name = "sub")
+		SubOptions	sub;
+	}
+
+	static class SubOptions
+	{
+		@Option
+		String	subOption;
+	}
+}
@@ -1,10 +1,14 @@
 package de.dr1fter.cliparsec;
 
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.*;
 
+import java.util.List;
+
 import org.junit.Test;
 
 import de.dr1fter.cliparsec.CliParser;
@@ -74,6 +78,30 @@ public class SubCommandTest
 		assertThat(nestedCmd.nestedCommand().isPresent(), is(false));
 	}
 
+	@Test
+	public void operands_of_nested_subcommands_should_be_a_view_of_the_args() throws Exception
+	{
+		String[] args = { "--topOption", "abc", "sub-command", "command", "--subOption1", "--", "op1", "op2" };
+
+		ParsingResult<OptionsWithSubCommandsWithSubCommands> result = examinee.parse(
+				new OptionsWithSubCommandsWithSubCommands(), args);
+		List<String> operands = result.operandList();
+
+		assertThat(operands, contains("op1", "op2"));
+		args[7] = "changed";
+		assertThat(operands, contains("op1", "changed"));
+		assertThat(result.operands(), arrayContaining("op1", "changed"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void operand_view_should_be_read_only() throws Exception
+	{
+		ParsingResult<OptionsWithSubCommands> result = examinee.parse(new OptionsWithSubCommands(), "command",
+				"op1");
+
+		result.operandList().set(0, "changed");
+	}
+
 	private static class OptionsWithSubCommands
 	{
 		@Option(argCount = 0)
@@ -0,0 +1,202 @@
+package de.dr1fter.cliparsec.daemon;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import de.dr1fter.cliparsec.ParsingResult;
+import de.dr1fter.cliparsec.ParsingResult.Status;
+import de.dr1fter.cliparsec.annotations.Command;
+import de.dr1fter.cliparsec.annotations.HelpOption;
+import de.dr1fter.cliparsec.annotations.Option;
+import de.dr1fter.cliparsec.daemon.ParserDaemon.CommandHandler;
+import de.dr1fter.cliparsec.daemon.ParserDaemonClient.Reply;
+
+public class ParserDaemonTest
+{
+	ParserDaemon<Options>	daemon;
+	ByteArrayOutputStream	output	= new ByteArrayOutputStream();
+
+	@Rule
+	public TemporaryFolder	tmp		= new TemporaryFolder();
+
+	@Before
+	public void startDaemon() throws Exception
+	{
+		daemon = ParserDaemon.start(0, new Supplier<Options>()
+		{
+			@Override
+			public Options get()
+			{
+				return new Options();
+			}
+		}, new CommandHandler<Options>()
+		{
+			@Override
+			public int execute(ParsingResult<Options> result, OutputStream out) throws Exception
+			{
+				if (result.status() != Status.SUCCESS)
+					return ParserDaemon.EXIT_ERROR;
+				Object options = ((ParsingResult<?>) result).options(); // the innermost command's options
+				String name = options instanceof Options ? ((Options) options).name : "sub";
+				new PrintStream(out, true, "UTF-8").println("hello " + name);
+				return 42;
+			}
+		});
+	}
+
+	@After
+	public void stopDaemon() throws Exception
+	{
+		daemon.close();
+	}
+
+	@Test
+	public void args_should_be_parsed_by_the_daemon() throws Exception
+	{
+		Reply reply = ParserDaemonClient.send(daemon.port(), daemon.token(), output, "--name", "wörld", "sub", "--flag",
+				"op1", "op2");
+
+		assertThat(output.toString("UTF-8"), equalTo("hello sub\n"));
+		assertThat(reply.status(), is(Status.SUCCESS));
+		assertThat(reply.exitCode(), is(42));
+		assertThat(reply.commands(), contains("sub"));
+		assertThat(reply.operands(), contains("op1", "op2"));
+	}
+
+	@Test
+	public void non_ascii_args_should_be_transferred() throws Exception
+	{
+		ParserDaemonClient.send(daemon.port(), daemon.token(), output, "--name", "wörld");
+
+		assertThat(output.toString("UTF-8"), equalTo("hello wörld\n"));
+	}
+
+	@Test
+	public void help_should_be_forwarded_to_the_client() throws Exception
+	{
+		Reply reply = ParserDaemonClient.send(daemon.port(), daemon.token(), output, "--help");
+
+		assertThat(reply.status(), is(Status.HELP));
+		assertThat(output.toString(), startsWith("Options:\n"));
+	}
+
+	@Test
+	public void parsing_errors_should_be_forwarded_to_the_client() throws Exception
+	{
+		Reply reply = ParserDaemonClient.send(daemon.port(), daemon.token(), output, "--unknown");
+
+		assertThat(reply.status(), is(Status.ERROR));
+		assertThat(reply.exitCode(), is(ParserDaemon.EXIT_ERROR));
+		assertThat(output.toString(), containsString("ERROR: unexpected token: --unknown"));
+	}
+
+	@Test(expected = IOException.class)
+	public void requests_with_a_wrong_token_should_be_rejected() throws Exception
+	{
+		ParserDaemonClient.send(daemon.port(), "wrong", output, "--name", "intruder");
+	}
+
+	@Test
+	public void response_files_should_not_be_expanded() throws Exception
+	{
+		File responseFile = tmp.newFile("args");
+		Files.write("--name secret", responseFile, Charsets.UTF_8);
+
+		Reply reply = ParserDaemonClient.send(daemon.port(), daemon.token(), output, "--name", "x", "sub",
+				"@" + responseFile.getPath());
+
+		assertThat(reply.operands(), contains("@" + responseFile.getPath()));
+		assertThat(output.toString("UTF-8"), equalTo("hello sub\n"));
+	}
+
+	@Test
+	public void concurrent_requests_should_be_served() throws Exception
+	{
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<String>> outputs = newArrayList();
+			for (int i = 0; i < 100; i++)
+			{
+				final String name = "client" + i;
+				outputs.add(clients.submit(new Callable<String>()
+				{
+					@Override
+					public String call() throws Exception
+					{
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						ParserDaemonClient.send(daemon.port(), daemon.token(), out, "--name", name);
+						return out.toString();
+					}
+				}));
+			}
+			for (int i = 0; i < outputs.size(); i++)
+				assertThat(outputs.get(i).get(), equalTo("hello client" + i + "\n"));
+		}
+		finally
+		{
+			clients.shutdown();
+		}
+	}
+
+	@Test
+	public void client_should_forward_output_and_exit_code() throws Exception
+	{
+		File tokenFile = daemon.writeToken(new File(tmp.getRoot(), "token"));
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		Process client = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ParserDaemonClient.class.getName(), String.valueOf(daemon.port()),
+				tokenFile.getPath(), "--name", "process")
+				.redirectErrorStream(true).start();
+
+		String stdout = new String(ByteStreams.toByteArray(client.getInputStream()), Charsets.UTF_8);
+
+		assertThat(client.waitFor(), is(42));
+		assertThat(stdout, equalTo("hello process\n"));
+	}
+
+	static class Options
+	{
+		@Option
+		String		name;
+
+		@HelpOption
+		Object		help;
+
+		@Command(name = "sub")
+		SubOptions	sub;
+	}
+
+	static class SubOptions
+	{
+		@Option
+		boolean	flag;
+	}
+}